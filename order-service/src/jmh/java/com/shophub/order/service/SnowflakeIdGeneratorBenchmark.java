@@ -0,0 +1,51 @@
+package com.shophub.order.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.netflix.eureka.EurekaInstanceConfigBean;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单ID生成吞吐量：单线程和 4 线程争用同一个 CAS 状态
+ *
+ * 单个实例每毫秒最多 4096 个ID，超出后逻辑时间向前借用，所以长时间满负荷测得的是借用路径的吞吐量。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SnowflakeIdGeneratorBenchmark {
+
+    private SnowflakeIdGenerator generator;
+
+    @Setup
+    public void setUp() {
+        generator = new SnowflakeIdGenerator(
+            new StaticListableBeanFactory().getBeanProvider(EurekaInstanceConfigBean.class), "order-service", "8083");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long nextIdSingleThread() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long nextIdFourThreads() {
+        return generator.nextId();
+    }
+}
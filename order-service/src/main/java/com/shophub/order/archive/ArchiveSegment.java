@@ -0,0 +1,378 @@
+package com.shophub.order.archive;
+
+import com.shophub.common.money.Money;
+import com.shophub.order.model.Order;
+import com.shophub.order.model.OrderStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 订单归档段文件
+ *
+ * 文件格式：[magic int][version int]，版本 3 之后是 [minCreatedAt long][maxCreatedAt long]，再之后是若干压缩块，
+ * 每块为 [firstId long][lastId long][count int][rawLength int][compressedLength int][deflate 数据]。
+ * 版本 2、3 的金额按 [currency UTF][minorUnits long] 存储（无金额时 currency 为空串），
+ * 版本 1 的 double 金额读取时按 USD 四舍五入到分。
+ * 文件头中的创建时间范围用于按时间查询时跳过整段；版本 1、2 没有这一范围，视为可能包含任意时间。
+ * 段内订单按ID升序，每块最多 blockSize 个订单；内存中只保存每块的首尾ID和偏移量（稀疏索引），
+ * 查找时二分定位到块，解压该块后顺序查找。文件写完后不再修改，通过内存映射只读访问。
+ */
+final class ArchiveSegment implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArchiveSegment.class);
+
+    private static final int MAGIC = 0x4F524441;
+    private static final int VERSION = 3;
+    private static final int VERSION_NO_TIME_RANGE = 2;
+    private static final int VERSION_DOUBLE_AMOUNT = 1;
+    private static final String VERSION_DOUBLE_AMOUNT_CURRENCY = "USD";
+    private static final int FILE_HEADER_BYTES = 24;
+    private static final int LEGACY_FILE_HEADER_BYTES = 8;
+    private static final int BLOCK_HEADER_BYTES = 28;
+
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+    private final Path path;
+    private final long sequence;
+    private final int version;
+    private final long minCreatedAt;
+    private final long maxCreatedAt;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long[] blockFirstIds;
+    private final long[] blockLastIds;
+    private final int[] blockOffsets;
+    private final int orderCount;
+
+    private ArchiveSegment(Path path, long sequence, int version, long minCreatedAt, long maxCreatedAt,
+                           FileChannel channel, MappedByteBuffer buffer,
+                           long[] blockFirstIds, long[] blockLastIds, int[] blockOffsets, int orderCount) {
+        this.path = path;
+        this.sequence = sequence;
+        this.version = version;
+        this.minCreatedAt = minCreatedAt;
+        this.maxCreatedAt = maxCreatedAt;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.blockFirstIds = blockFirstIds;
+        this.blockLastIds = blockLastIds;
+        this.blockOffsets = blockOffsets;
+        this.orderCount = orderCount;
+    }
+
+    /**
+     * 把按ID升序排列的订单写成一个新的段文件：先写临时文件并刷盘，再原子重命名
+     */
+    static ArchiveSegment write(Path file, long sequence, List<Order> sortedOrders, int blockSize) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        long minCreatedAt = Long.MAX_VALUE;
+        long maxCreatedAt = Long.MIN_VALUE;
+        for (Order order : sortedOrders) {
+            minCreatedAt = Math.min(minCreatedAt, order.getCreatedAt());
+            maxCreatedAt = Math.max(maxCreatedAt, order.getCreatedAt());
+        }
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES)
+                .putInt(MAGIC)
+                .putInt(VERSION)
+                .putLong(minCreatedAt)
+                .putLong(maxCreatedAt)
+                .flip();
+            writeFully(out, header);
+
+            for (int from = 0; from < sortedOrders.size(); from += blockSize) {
+                List<Order> block = sortedOrders.subList(from, Math.min(from + blockSize, sortedOrders.size()));
+                byte[] raw = encode(block);
+                deflater.reset();
+                deflater.setInput(raw);
+                deflater.finish();
+                byte[] compressed = new byte[raw.length + 64];
+                int compressedLength = 0;
+                while (!deflater.finished()) {
+                    if (compressedLength == compressed.length) {
+                        compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                    }
+                    compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+                }
+
+                ByteBuffer blockBuffer = ByteBuffer.allocate(BLOCK_HEADER_BYTES + compressedLength)
+                    .putLong(block.get(0).getId())
+                    .putLong(block.get(block.size() - 1).getId())
+                    .putInt(block.size())
+                    .putInt(raw.length)
+                    .putInt(compressedLength)
+                    .put(compressed, 0, compressedLength)
+                    .flip();
+                writeFully(out, blockBuffer);
+            }
+            out.force(true);
+        } finally {
+            deflater.end();
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return open(file, sequence);
+    }
+
+    /**
+     * 映射段文件并扫描块头重建稀疏索引
+     */
+    static ArchiveSegment open(Path file, long sequence) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.limit() < LEGACY_FILE_HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not an order archive segment: " + file);
+            }
+            int version = buffer.getInt(4);
+            if (version != VERSION && version != VERSION_NO_TIME_RANGE && version != VERSION_DOUBLE_AMOUNT) {
+                throw new IOException("Unsupported order archive segment version " + version + ": " + file);
+            }
+            int headerBytes = version == VERSION ? FILE_HEADER_BYTES : LEGACY_FILE_HEADER_BYTES;
+            if (buffer.limit() < headerBytes) {
+                throw new IOException("Truncated order archive segment header: " + file);
+            }
+            long minCreatedAt = version == VERSION ? buffer.getLong(8) : Long.MIN_VALUE;
+            long maxCreatedAt = version == VERSION ? buffer.getLong(16) : Long.MAX_VALUE;
+
+            List<long[]> blocks = new ArrayList<>();
+            int orderCount = 0;
+            int offset = headerBytes;
+            while (offset + BLOCK_HEADER_BYTES <= buffer.limit()) {
+                int compressedLength = buffer.getInt(offset + 24);
+                if (offset + BLOCK_HEADER_BYTES + compressedLength > buffer.limit()) {
+                    logger.warn("Ignoring truncated block at offset {} in {}", offset, file);
+                    break;
+                }
+                blocks.add(new long[]{buffer.getLong(offset), buffer.getLong(offset + 8), offset});
+                orderCount += buffer.getInt(offset + 16);
+                offset += BLOCK_HEADER_BYTES + compressedLength;
+            }
+
+            long[] firstIds = new long[blocks.size()];
+            long[] lastIds = new long[blocks.size()];
+            int[] offsets = new int[blocks.size()];
+            for (int i = 0; i < blocks.size(); i++) {
+                firstIds[i] = blocks.get(i)[0];
+                lastIds[i] = blocks.get(i)[1];
+                offsets[i] = (int) blocks.get(i)[2];
+            }
+            return new ArchiveSegment(file, sequence, version, minCreatedAt, maxCreatedAt, channel, buffer,
+                firstIds, lastIds, offsets, orderCount);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    boolean mayContain(long orderId) {
+        return blockFirstIds.length > 0
+            && orderId >= blockFirstIds[0]
+            && orderId <= blockLastIds[blockLastIds.length - 1];
+    }
+
+    /**
+     * 段内是否可能有创建时间在 [from, to) 内的订单
+     */
+    boolean mayContainCreatedBetween(long from, long to) {
+        return minCreatedAt < to && maxCreatedAt >= from;
+    }
+
+    /**
+     * 按订单ID查找：二分定位块，只解压这一块
+     */
+    Optional<Order> find(long orderId) {
+        int block = Arrays.binarySearch(blockFirstIds, orderId);
+        if (block < 0) {
+            block = -block - 2;
+        }
+        if (block < 0 || orderId > blockLastIds[block]) {
+            return Optional.empty();
+        }
+
+        try {
+            DataInputStream in = inflate(block);
+            int count = buffer.getInt(blockOffsets[block] + 16);
+            for (int i = 0; i < count; i++) {
+                long id = in.readLong();
+                if (id == orderId) {
+                    return Optional.of(decode(id, in));
+                }
+                skip(in);
+            }
+            return Optional.empty();
+        } catch (IOException | DataFormatException e) {
+            throw new UncheckedIOException(new IOException("Failed to read order " + orderId + " from " + path, e));
+        }
+    }
+
+    /**
+     * 按订单ID升序惰性遍历段内全部订单，每次只解压一个块
+     */
+    Stream<Order> orders() {
+        return IntStream.range(0, blockOffsets.length).boxed()
+            .flatMap(block -> readBlock(block).stream());
+    }
+
+    private List<Order> readBlock(int block) {
+        try {
+            DataInputStream in = inflate(block);
+            int count = buffer.getInt(blockOffsets[block] + 16);
+            List<Order> orders = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                orders.add(decode(in.readLong(), in));
+            }
+            return orders;
+        } catch (IOException | DataFormatException e) {
+            throw new UncheckedIOException(new IOException("Failed to read block " + block + " from " + path, e));
+        }
+    }
+
+    /**
+     * 解压一个块，直接从映射内存读取压缩数据，不复制
+     */
+    private DataInputStream inflate(int block) throws IOException, DataFormatException {
+        int offset = blockOffsets[block];
+        int rawLength = buffer.getInt(offset + 20);
+        int compressedLength = buffer.getInt(offset + 24);
+        byte[] raw = new byte[rawLength];
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(buffer.slice(offset + BLOCK_HEADER_BYTES, compressedLength));
+        int inflated = 0;
+        while (inflated < rawLength && !inflater.finished()) {
+            int n = inflater.inflate(raw, inflated, rawLength - inflated);
+            if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                break;
+            }
+            inflated += n;
+        }
+        if (inflated != rawLength) {
+            throw new IOException("Corrupt block at offset " + offset + " in " + path);
+        }
+        return new DataInputStream(new ByteArrayInputStream(raw));
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    int getOrderCount() {
+        return orderCount;
+    }
+
+    int getBlockCount() {
+        return blockOffsets.length;
+    }
+
+    long getSizeBytes() {
+        return buffer.limit();
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static byte[] encode(List<Order> block) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(block.size() * 96);
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (Order order : block) {
+            out.writeLong(order.getId());
+            out.writeLong(order.getUserId());
+            out.writeUTF(order.getStatus().name());
+            Money total = order.getTotal();
+            out.writeUTF(total != null ? total.getCurrency() : "");
+            out.writeLong(total != null ? total.getMinorUnits() : 0L);
+            out.writeLong(order.getCreatedAt());
+            out.writeLong(order.getUpdatedAt());
+            out.writeInt(order.getProductIds().size());
+            for (Long productId : order.getProductIds()) {
+                out.writeLong(productId);
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private Order decode(long id, DataInputStream in) throws IOException {
+        long userId = in.readLong();
+        OrderStatus status = OrderStatus.valueOf(in.readUTF());
+        Money amount = version == VERSION_DOUBLE_AMOUNT ? readDoubleAmount(in) : readAmount(in);
+        long createdAt = in.readLong();
+        long updatedAt = in.readLong();
+        int productCount = in.readInt();
+        List<Long> productIds = new ArrayList<>(productCount);
+        for (int i = 0; i < productCount; i++) {
+            productIds.add(in.readLong());
+        }
+        return new Order(id, userId, productIds, status, amount, createdAt, updatedAt);
+    }
+
+    private static Money readAmount(DataInputStream in) throws IOException {
+        String currency = in.readUTF();
+        long minorUnits = in.readLong();
+        return currency.isEmpty() ? null : Money.ofMinor(minorUnits, currency);
+    }
+
+    private static Money readDoubleAmount(DataInputStream in) throws IOException {
+        boolean hasAmount = in.readBoolean();
+        double amount = in.readDouble();
+        if (!hasAmount) {
+            return null;
+        }
+        BigDecimal scaled = BigDecimal.valueOf(amount)
+            .setScale(Money.fractionDigits(VERSION_DOUBLE_AMOUNT_CURRENCY), RoundingMode.HALF_EVEN);
+        return Money.of(scaled, VERSION_DOUBLE_AMOUNT_CURRENCY);
+    }
+
+    private void skip(DataInputStream in) throws IOException {
+        in.readLong();
+        in.readUTF();
+        if (version == VERSION_DOUBLE_AMOUNT) {
+            in.skipNBytes(1 + 8);
+        } else {
+            in.readUTF();
+            in.skipNBytes(8);
+        }
+        in.skipNBytes(8 + 8);
+        int productCount = in.readInt();
+        in.skipNBytes(productCount * 8L);
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+}
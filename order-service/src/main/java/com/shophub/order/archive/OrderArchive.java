@@ -0,0 +1,230 @@
+package com.shophub.order.archive;
+
+import com.shophub.order.model.Order;
+import com.shophub.order.model.OrderStatus;
+import com.shophub.order.repository.OrderStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 冷订单归档
+ *
+ * 定期把创建时间早于 min-age 的已完成/已取消订单写入压缩的只追加段文件，然后从内存存储中移除，
+ * 内存中只保留每个段的稀疏块索引。按ID查询内存未命中时从新到旧查找段文件。
+ */
+@Component
+public class OrderArchive {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderArchive.class);
+
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{10})\\.dat");
+    private static final List<OrderStatus> ARCHIVABLE_STATUSES = List.of(OrderStatus.COMPLETED, OrderStatus.CANCELLED);
+
+    @Autowired
+    private OrderStore orderStore;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${order.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${order.archive.dir:./data/order-archive}")
+    private String archiveDir;
+
+    @Value("${order.archive.min-age:30d}")
+    private Duration minAge;
+
+    @Value("${order.archive.batch-size:50000}")
+    private int batchSize;
+
+    @Value("${order.archive.block-size:8}")
+    private int blockSize;
+
+    @Value("${order.archive.segment-max-size:64MB}")
+    private DataSize segmentMaxSize;
+
+    /** 按序号升序，查找时从后往前，较新的段优先 */
+    private final List<ArchiveSegment> segments = new CopyOnWriteArrayList<>();
+    private final AtomicLong nextSequence = new AtomicLong(1);
+    private Path directory;
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            logger.info("Order archive is disabled");
+            return;
+        }
+        directory = Paths.get(archiveDir);
+        Files.createDirectories(directory);
+
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream.filter(file -> SEGMENT_NAME.matcher(file.getFileName().toString()).matches())
+                .sorted(Comparator.comparing(file -> file.getFileName().toString()))
+                .toList();
+        }
+        for (Path file : files) {
+            Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+            matcher.matches();
+            long sequence = Long.parseLong(matcher.group(1));
+            try {
+                segments.add(ArchiveSegment.open(file, sequence));
+                nextSequence.set(Math.max(nextSequence.get(), sequence + 1));
+            } catch (IOException e) {
+                logger.error("Skipping unreadable archive segment {}", file, e);
+            }
+        }
+        logger.info("Opened {} order archive segments with {} orders from {}",
+            segments.size(), getArchivedOrderCount(), directory.toAbsolutePath());
+
+        Gauge.builder("orders.archive.orders", this, OrderArchive::getArchivedOrderCount)
+            .description("Orders stored in archive segments")
+            .register(meterRegistry);
+        Gauge.builder("orders.archive.segments", segments, List::size)
+            .description("Number of order archive segments")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ArchiveSegment segment : segments) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close archive segment {}", segment.getPath(), e);
+            }
+        }
+    }
+
+    /**
+     * 从归档中按ID查找订单
+     */
+    public Optional<Order> findById(long orderId) {
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            ArchiveSegment segment = segments.get(i);
+            if (segment.mayContain(orderId)) {
+                Optional<Order> order = segment.find(orderId);
+                if (order.isPresent()) {
+                    return order;
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 从旧到新惰性遍历所有归档订单，每次只解压一个块
+     */
+    public Stream<Order> streamAll() {
+        return segments.stream().flatMap(ArchiveSegment::orders);
+    }
+
+    /**
+     * 从旧到新惰性遍历可能包含创建时间在 [from, to) 内订单的段，按段头的时间范围跳过其余段；
+     * 返回的订单仍需调用方按创建时间过滤
+     */
+    public Stream<Order> streamCreatedBetween(long from, long to) {
+        return segments.stream()
+            .filter(segment -> segment.mayContainCreatedBetween(from, to))
+            .flatMap(ArchiveSegment::orders);
+    }
+
+    /**
+     * 把冷订单写入新的段文件并从内存中移除
+     */
+    @Scheduled(fixedDelayString = "${order.archive.interval-ms:3600000}", initialDelayString = "${order.archive.initial-delay-ms:60000}")
+    public synchronized void archiveColdOrders() {
+        if (!enabled) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - minAge.toMillis();
+        List<Order> candidates = new ArrayList<>();
+        for (OrderStatus status : ARCHIVABLE_STATUSES) {
+            for (Order order : orderStore.findByStatus(status)) {
+                if (order.getCreatedAt() < cutoff && candidates.size() < batchSize) {
+                    orderStore.snapshot(order.getId())
+                        .filter(snapshot -> snapshot.getStatus() == status)
+                        .ifPresent(candidates::add);
+                }
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+        candidates.sort(Comparator.comparing(Order::getId));
+
+        // 按段大小上限切分（以未压缩的粗略估算为准，实际文件更小）
+        int ordersPerSegment = (int) Math.max(blockSize, segmentMaxSize.toBytes() / 96);
+        int archived = 0;
+        for (int from = 0; from < candidates.size(); from += ordersPerSegment) {
+            List<Order> batch = candidates.subList(from, Math.min(from + ordersPerSegment, candidates.size()));
+            long sequence = nextSequence.getAndIncrement();
+            Path file = directory.resolve(String.format("segment-%010d.dat", sequence));
+            try {
+                segments.add(ArchiveSegment.write(file, sequence, batch, blockSize));
+            } catch (IOException e) {
+                logger.error("Failed to write order archive segment {}", file, e);
+                return;
+            }
+            // 段文件落盘后才移除内存中的订单；期间状态有变化的订单继续留在内存中
+            for (Order snapshot : batch) {
+                if (orderStore.removeIfUnchanged(snapshot)) {
+                    archived++;
+                }
+            }
+        }
+        logger.info("Archived {} orders older than {} into {}", archived, minAge, directory);
+    }
+
+    public long getArchivedOrderCount() {
+        long count = 0;
+        for (ArchiveSegment segment : segments) {
+            count += segment.getOrderCount();
+        }
+        return count;
+    }
+
+    public Map<String, Object> getStats() {
+        long bytes = 0;
+        long blocks = 0;
+        for (ArchiveSegment segment : segments) {
+            bytes += segment.getSizeBytes();
+            blocks += segment.getBlockCount();
+        }
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("segments", segments.size());
+        stats.put("archivedOrders", getArchivedOrderCount());
+        stats.put("indexedBlocks", blocks);
+        stats.put("sizeBytes", bytes);
+        stats.put("minAge", minAge.toString());
+        return stats;
+    }
+}
@@ -0,0 +1,11 @@
+package com.shophub.order.client;
+
+/**
+ * 调用方并发数已达到自适应并发上限，请求未发出即被拒绝
+ */
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+    public ConcurrencyLimitExceededException(String serviceId, int limit) {
+        super("Concurrency limit " + limit + " for " + serviceId + " exceeded");
+    }
+}
@@ -0,0 +1,98 @@
+package com.shophub.order.client;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 梯度并发上限算法，由 PaymentConcurrencyLimiter 在每个请求结束时喂入样本
+ *
+ * 最小 RTT 代表无排队时的延迟，短期 RTT（约 shortWindow 个样本的 EMA）代表当前延迟，
+ * 梯度 = tolerance x 最小 / 短期，限制在 [0.5, 1]；新 limit = limit x 梯度 + sqrt(limit)，再按 smoothing 平滑。
+ * 变慢时梯度小于 1，limit 收缩；延迟正常时每个样本增加约 sqrt(limit) 的排队余量，
+ * 稳定在短期 RTT 约为最小 RTT 的 tolerance 倍处。进行中的请求不到 limit 一半时不调整，避免低负载下 limit 无限增长。
+ * 持续满载时观测不到无排队的延迟，所以每隔约 probeInterval 个样本探测一次：limit 降到 sqrt(limit)，
+ * 之后在低并发下发出的请求重新测量最小 RTT。
+ * 请求被丢弃（出错、超时、429/503）时 limit 乘以 backoffRatio。
+ */
+final class GradientLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final double backoffRatio;
+    private final double shortAlpha;
+    private final int probeInterval;
+
+    private double estimatedLimit;
+    private double minRttNanos;
+    private double shortRttNanos;
+    private long samples;
+    private long nextProbeAt;
+
+    GradientLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing,
+                  double backoffRatio, int shortWindow, int probeInterval) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.tolerance = Math.max(1.0, tolerance);
+        this.smoothing = Math.max(0.01, Math.min(1.0, smoothing));
+        this.backoffRatio = Math.max(0.5, Math.min(1.0, backoffRatio));
+        this.shortAlpha = 2.0 / (Math.max(1, shortWindow) + 1);
+        this.probeInterval = Math.max(100, probeInterval);
+        this.estimatedLimit = Math.max(this.minLimit, Math.min(this.maxLimit, initialLimit));
+        this.nextProbeAt = nextProbe(0L);
+    }
+
+    /**
+     * 记录一个样本，返回新的整数 limit
+     */
+    synchronized int onSample(long rttNanos, int inFlightAtStart, boolean dropped) {
+        if (dropped) {
+            return updateLimit(estimatedLimit * backoffRatio);
+        }
+        if (++samples >= nextProbeAt) {
+            nextProbeAt = nextProbe(samples);
+            minRttNanos = 0.0;
+            return updateLimit(Math.sqrt(estimatedLimit));
+        }
+        if (minRttNanos == 0.0) {
+            // 探测后只用 limit 降低之后发出的请求作为新的最小 RTT
+            if (inFlightAtStart <= estimatedLimit) {
+                minRttNanos = rttNanos;
+                shortRttNanos = rttNanos;
+            }
+            return getLimit();
+        }
+        minRttNanos = Math.min(minRttNanos, rttNanos);
+        shortRttNanos += (rttNanos - shortRttNanos) * shortAlpha;
+        if (inFlightAtStart < estimatedLimit / 2) {
+            return getLimit();
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * minRttNanos / shortRttNanos));
+        double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        return updateLimit(estimatedLimit * (1 - smoothing) + target * smoothing);
+    }
+
+    synchronized int getLimit() {
+        return (int) estimatedLimit;
+    }
+
+    synchronized double getMinRttNanos() {
+        return minRttNanos;
+    }
+
+    synchronized double getShortRttNanos() {
+        return shortRttNanos;
+    }
+
+    private int updateLimit(double newLimit) {
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        return (int) estimatedLimit;
+    }
+
+    /**
+     * 下一次探测的样本序号，加入随机间隔避免多个订单服务实例同时探测
+     */
+    private long nextProbe(long current) {
+        return current + probeInterval + ThreadLocalRandom.current().nextInt(probeInterval / 2 + 1);
+    }
+}
@@ -0,0 +1,59 @@
+package com.shophub.order.client;
+
+import com.shophub.order.feign.PaymentServiceClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 支付服务异步客户端
+ * 基于负载均衡的 WebClient，所有调用都不阻塞调用线程；熔断、重试由调用方决定
+ */
+@Component
+public class PaymentClient {
+
+    private static final ParameterizedTypeReference<Map<String, Object>> RESPONSE_TYPE =
+        new ParameterizedTypeReference<>() {};
+
+    @Autowired
+    @Qualifier("paymentWebClient")
+    private WebClient paymentWebClient;
+
+    /**
+     * 提交支付
+     */
+    public CompletableFuture<Map<String, Object>> processPayment(PaymentServiceClient.PaymentRequest request) {
+        return paymentWebClient.post()
+            .uri("/api/payments/process")
+            .bodyValue(request)
+            .retrieve()
+            .bodyToMono(RESPONSE_TYPE)
+            .toFuture();
+    }
+
+    /**
+     * 查询订单的支付记录，不存在时返回空
+     */
+    public CompletableFuture<Optional<Map<String, Object>>> findPaymentByOrderId(Long orderId) {
+        return paymentWebClient.get()
+            .uri("/api/payments/order/{orderId}", orderId)
+            .exchangeToMono(response -> {
+                if (response.statusCode().isSameCodeAs(HttpStatus.NOT_FOUND)) {
+                    return Mono.just(Optional.<Map<String, Object>>empty());
+                }
+                if (response.statusCode().isError()) {
+                    return response.<Optional<Map<String, Object>>>createError();
+                }
+                return response.bodyToMono(RESPONSE_TYPE).map(Optional::of).defaultIfEmpty(Optional.empty());
+            })
+            .toFuture();
+    }
+}
@@ -0,0 +1,170 @@
+package com.shophub.order.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 支付服务自适应并发限制
+ *
+ * 作为 paymentWebClient 的过滤器，同时发往支付服务的请求数不超过 limit，超过时立即以
+ * ConcurrencyLimitExceededException 失败，不再排队等待已经饱和的支付服务。
+ * 名额在响应体读完（或被释放、出错）时才归还，RTT 也按此时计算，包含读取响应体的时间。
+ * limit 按梯度算法调整（见 GradientLimit）：支付服务变慢时收缩，延迟正常时逐渐增长，
+ * 持续满载时定期探测以重新测量无排队的延迟，请求出错、超时或返回 429/503 时按比例下调。
+ */
+@Component
+public class PaymentConcurrencyLimiter implements ExchangeFilterFunction {
+
+    private static final String SERVICE_ID = "payment-service";
+
+    private final boolean enabled;
+    private final GradientLimit gradientLimit;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+
+    private volatile int limit;
+
+    public PaymentConcurrencyLimiter(MeterRegistry meterRegistry,
+                                     @Value("${order.payment.concurrency-limit.enabled:true}") boolean enabled,
+                                     @Value("${order.payment.concurrency-limit.initial-limit:20}") int initialLimit,
+                                     @Value("${order.payment.concurrency-limit.min-limit:4}") int minLimit,
+                                     @Value("${order.payment.concurrency-limit.max-limit:200}") int maxLimit,
+                                     @Value("${order.payment.concurrency-limit.tolerance:1.5}") double tolerance,
+                                     @Value("${order.payment.concurrency-limit.smoothing:0.2}") double smoothing,
+                                     @Value("${order.payment.concurrency-limit.backoff-ratio:0.9}") double backoffRatio,
+                                     @Value("${order.payment.concurrency-limit.short-window:10}") int shortWindow,
+                                     @Value("${order.payment.concurrency-limit.probe-interval:1000}") int probeInterval) {
+        this.enabled = enabled;
+        this.gradientLimit = new GradientLimit(initialLimit, minLimit, maxLimit, tolerance, smoothing,
+            backoffRatio, shortWindow, probeInterval);
+        this.limit = gradientLimit.getLimit();
+
+        this.rejected = Counter.builder("orders.payment.concurrency.rejected")
+            .description("Payment calls rejected by the adaptive concurrency limit")
+            .register(meterRegistry);
+        Gauge.builder("orders.payment.concurrency.limit", this, limiter -> limiter.limit)
+            .description("Current adaptive concurrency limit for payment-service")
+            .register(meterRegistry);
+        Gauge.builder("orders.payment.concurrency.in-flight", inFlight, AtomicInteger::get)
+            .description("Payment calls currently in flight")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (!enabled) {
+            return next.exchange(request);
+        }
+        // 订阅时才占用名额，重试重新订阅时重新判断
+        return Mono.defer(() -> {
+            int inFlightAtStart = tryAcquire();
+            if (inFlightAtStart < 0) {
+                rejected.increment();
+                return Mono.error(new ConcurrencyLimitExceededException(SERVICE_ID, limit));
+            }
+            Permit permit = new Permit(inFlightAtStart);
+            return next.exchange(request)
+                .map(response -> {
+                    permit.responded = true;
+                    boolean overloaded = isOverloaded(response);
+                    return response.mutate()
+                        .body(body -> body.doFinally(signal -> {
+                            if (signal == SignalType.CANCEL) {
+                                permit.release(false, false);
+                            } else {
+                                permit.release(true, overloaded || signal == SignalType.ON_ERROR);
+                            }
+                        }))
+                        .build();
+                })
+                .doOnSuccess(response -> {
+                    if (response == null) {
+                        permit.release(true, true);
+                    }
+                })
+                .doOnError(e -> permit.release(true, true))
+                .doOnCancel(() -> {
+                    // 收到响应前调用方取消，不作为样本
+                    if (!permit.responded) {
+                        permit.release(false, false);
+                    }
+                });
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("limit", limit);
+        stats.put("inFlight", inFlight.get());
+        stats.put("rejected", (long) rejected.count());
+        stats.put("minRttMillis", gradientLimit.getMinRttNanos() / 1_000_000);
+        stats.put("shortRttMillis", gradientLimit.getShortRttNanos() / 1_000_000);
+        return stats;
+    }
+
+    /**
+     * 占用一个名额，返回占用后的进行中请求数；已达到 limit 时返回 -1
+     */
+    private int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    private void onSample(long rttNanos, int inFlightAtStart, boolean dropped) {
+        limit = gradientLimit.onSample(rttNanos, inFlightAtStart, dropped);
+    }
+
+    private static boolean isOverloaded(ClientResponse response) {
+        return response.statusCode().isSameCodeAs(HttpStatus.SERVICE_UNAVAILABLE)
+            || response.statusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    /**
+     * 一次调用占用的名额，只归还一次
+     */
+    private final class Permit {
+
+        private final long start = System.nanoTime();
+        private final int inFlightAtStart;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile boolean responded;
+
+        private Permit(int inFlightAtStart) {
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        void release(boolean sample, boolean dropped) {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            inFlight.decrementAndGet();
+            if (sample) {
+                onSample(System.nanoTime() - start, inFlightAtStart, dropped);
+            }
+        }
+    }
+}
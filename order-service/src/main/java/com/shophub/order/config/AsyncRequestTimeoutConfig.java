@@ -0,0 +1,36 @@
+package com.shophub.order.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 按请求覆盖异步请求超时
+ *
+ * spring.mvc.async.request-timeout 是全局的，按支付调用设定；导出等长时间流式响应
+ * 在请求属性 TIMEOUT_ATTRIBUTE 中给出自己的超时（毫秒），在异步处理开始前生效。
+ */
+@Configuration
+public class AsyncRequestTimeoutConfig implements WebMvcConfigurer {
+
+    public static final String TIMEOUT_ATTRIBUTE = AsyncRequestTimeoutConfig.class.getName() + ".timeout";
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                if (request instanceof AsyncWebRequest asyncRequest
+                        && request.getAttribute(TIMEOUT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof Long timeout) {
+                    asyncRequest.setTimeout(timeout);
+                }
+            }
+        });
+    }
+}
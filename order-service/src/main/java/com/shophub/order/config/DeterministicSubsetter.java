@@ -0,0 +1,52 @@
+package com.shophub.order.config;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 确定性子集划分
+ *
+ * 每个客户端实例只连接后端实例中固定的 subsetSize 个，连接数从 客户端数 x 后端数 降到 客户端数 x subsetSize。
+ * 算法与《Site Reliability Engineering》第 20 章相同：后端按实例标识排序后，以 clientId / subsetCount
+ * 为种子洗牌，同一轮中的 subsetCount 个客户端各取洗牌结果中不重叠的一段；
+ * clientId 连续分配时每个后端被大致相同数量的客户端使用，且结果只取决于 clientId 和后端集合。
+ * clientId 必须是从 0 开始的稠密编号（order.load-balancer.client-index），编号稀疏时部分子集无人使用、部分子集被多个客户端共用；
+ * 后端集合应为全部已注册实例而不是当前健康的实例，否则一个实例状态变化会让多数客户端的子集整体洗牌。
+ */
+final class DeterministicSubsetter {
+
+    private final long clientId;
+    private final int subsetSize;
+
+    DeterministicSubsetter(long clientId, int subsetSize) {
+        this.clientId = clientId;
+        this.subsetSize = subsetSize;
+    }
+
+    static DeterministicSubsetter disabled() {
+        return new DeterministicSubsetter(0L, 0);
+    }
+
+    /**
+     * 本客户端使用的后端子集；未启用或后端数不超过 subsetSize 时返回全部
+     */
+    List<ServiceInstance> subset(List<ServiceInstance> backends) {
+        if (subsetSize <= 0 || backends.size() <= subsetSize) {
+            return backends;
+        }
+        List<ServiceInstance> ordered = new ArrayList<>(backends);
+        ordered.sort(Comparator.comparing(VendorPartitions::instanceKey));
+
+        int subsetCount = ordered.size() / subsetSize;
+        long round = clientId / subsetCount;
+        Collections.shuffle(ordered, new Random(round));
+
+        int start = (int) (clientId % subsetCount) * subsetSize;
+        return List.copyOf(ordered.subList(start, start + subsetSize));
+    }
+}
@@ -0,0 +1,141 @@
+package com.shophub.order.config;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 实例负载跟踪
+ *
+ * 通过 LoadBalancerLifecycle 回调统计每个实例的进行中请求数和响应时间的指数加权平均（EWMA），
+ * 供 VendorAwareLoadBalancer 的 power-of-two-choices 策略打分。
+ * 响应变慢时 EWMA 立即取新值，变快时按 decay 时间常数逐渐回落；
+ * 实例空闲时 EWMA 同样随时间衰减，避免一次慢请求后实例永远分不到流量。
+ * 失败的请求按不少于 failurePenalty 的耗时计入。
+ */
+public class InstanceLatencyTracker implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private final long decayNanos;
+    private final long failurePenaltyNanos;
+    private final Map<String, InstanceLoad> loads = new ConcurrentHashMap<>();
+
+    public InstanceLatencyTracker(long decayNanos, long failurePenaltyNanos) {
+        this.decayNanos = decayNanos;
+        this.failurePenaltyNanos = failurePenaltyNanos;
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (!lbResponse.hasServer()) {
+            return;
+        }
+        if (request.getContext() instanceof TimedRequestContext timed) {
+            timed.setRequestStartTime(System.nanoTime());
+        }
+        load(lbResponse.getServer()).inFlight.incrementAndGet();
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+        Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+        if (completionContext.status() == CompletionContext.Status.DISCARD || lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        InstanceLoad load = load(lbResponse.getServer());
+        load.inFlight.updateAndGet(n -> Math.max(0, n - 1));
+
+        long startTime = completionContext.getLoadBalancerRequest().getContext() instanceof TimedRequestContext timed
+            ? timed.getRequestStartTime() : 0L;
+        if (startTime == 0L) {
+            return;
+        }
+        long now = System.nanoTime();
+        long latency = now - startTime;
+        if (completionContext.status() == CompletionContext.Status.FAILED) {
+            latency = Math.max(latency, failurePenaltyNanos);
+        }
+        load.observe(latency, now, decayNanos);
+    }
+
+    /**
+     * 实例当前的负载得分，越小越好：EWMA 响应时间 x (进行中请求数 + 1)
+     */
+    public double cost(ServiceInstance instance, long now) {
+        InstanceLoad load = loads.get(key(instance));
+        return load == null ? 0.0 : load.cost(now, decayNanos, failurePenaltyNanos);
+    }
+
+    public int getInFlight(ServiceInstance instance) {
+        InstanceLoad load = loads.get(key(instance));
+        return load == null ? 0 : load.inFlight.get();
+    }
+
+    /**
+     * 清理已下线实例的统计
+     */
+    public void retain(Collection<ServiceInstance> instances) {
+        if (loads.size() <= instances.size()) {
+            return;
+        }
+        Set<String> live = instances.stream().map(InstanceLatencyTracker::key).collect(Collectors.toSet());
+        loads.keySet().retainAll(live);
+    }
+
+    private InstanceLoad load(ServiceInstance instance) {
+        return loads.computeIfAbsent(key(instance), k -> new InstanceLoad());
+    }
+
+    private static String key(ServiceInstance instance) {
+        return VendorPartitions.instanceKey(instance);
+    }
+
+    private static final class InstanceLoad {
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private double ewmaNanos;
+        private long lastUpdate;
+
+        synchronized void observe(long latency, long now, long decayNanos) {
+            if (latency > ewmaNanos) {
+                ewmaNanos = latency;
+            } else {
+                double weight = Math.exp(-(double) Math.max(0L, now - lastUpdate) / decayNanos);
+                ewmaNanos = ewmaNanos * weight + latency * (1 - weight);
+            }
+            lastUpdate = now;
+        }
+
+        synchronized double cost(long now, long decayNanos, long failurePenaltyNanos) {
+            int pending = inFlight.get();
+            double ewma = decayed(now, decayNanos);
+            if (ewma == 0.0 && pending > 0) {
+                // 还没有样本的实例按失败惩罚估计，避免所有请求同时涌向新实例
+                return (double) failurePenaltyNanos * pending;
+            }
+            return ewma * (pending + 1);
+        }
+
+        private double decayed(long now, long decayNanos) {
+            return ewmaNanos * Math.exp(-(double) Math.max(0L, now - lastUpdate) / decayNanos);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.shophub.order.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.client.discovery.event.HeartbeatEvent;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactiveLoadBalancer;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 负载均衡实例快照刷新
+ *
+ * Eureka 客户端每次拉取注册表后发布 HeartbeatEvent；此时通知已创建的 VendorAwareLoadBalancer
+ * 重新订阅各自的 ServiceInstanceListSupplier 链。负载均衡器运行在各自的子上下文中，
+ * 收不到主上下文的事件，所以由这里转发。
+ */
+@Component
+public class InstanceSnapshotRefresher {
+
+    private static final Logger logger = LoggerFactory.getLogger(InstanceSnapshotRefresher.class);
+
+    @Autowired
+    private LoadBalancerClientFactory loadBalancerClientFactory;
+
+    @EventListener
+    public void onRegistryRefreshed(HeartbeatEvent event) {
+        for (String serviceId : loadBalancerClientFactory.getContextNames()) {
+            ReactiveLoadBalancer<?> loadBalancer = loadBalancerClientFactory.getInstance(serviceId);
+            if (loadBalancer instanceof VendorAwareLoadBalancer vendorAware) {
+                try {
+                    vendorAware.refresh();
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to refresh instance snapshot for {}: {}", serviceId, e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -1,19 +1,31 @@
 package com.shophub.order.config;
 
+import com.netflix.appinfo.InstanceInfo;
+import com.netflix.discovery.EurekaClient;
+import com.netflix.discovery.shared.Application;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.loadbalancer.core.RandomLoadBalancer;
 import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
 import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
 import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.cloud.netflix.eureka.EurekaServiceInstance;
 import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 负载均衡配置
  * 自定义负载均衡策略，演示客户端负载均衡
+ *
+ * 通过 @LoadBalancerClient(name = "product-service", configuration = LoadBalancerConfig.class)
+ * 只注册到 product-service 的子上下文；不能加 @Configuration，否则会进入主上下文，
+ * 被 payment-service 等其他客户端继承。
  */
-@Configuration
 public class LoadBalancerConfig {
     
     /**
@@ -34,14 +46,61 @@ public class LoadBalancerConfig {
 //    }
 
 
+    /**
+     * 实例响应时间和进行中请求数统计，由 LoadBalancerLifecycle 回调更新。
+     * 子上下文没有 Spring Boot 的类型转换服务，时长按字符串读取后自行解析
+     */
+    @Bean
+    public InstanceLatencyTracker instanceLatencyTracker(
+            @Value("${order.load-balancer.ewma-decay:10s}") String ewmaDecay,
+            @Value("${order.load-balancer.failure-penalty:1s}") String failurePenalty) {
+        return new InstanceLatencyTracker(
+                DurationStyle.detectAndParse(ewmaDecay).toNanos(),
+                DurationStyle.detectAndParse(failurePenalty).toNanos());
+    }
+
     @Bean
     public ReactorLoadBalancer<ServiceInstance> productServiceLoadBalancer(
             Environment environment,
-            LoadBalancerClientFactory loadBalancerClientFactory) {
+            LoadBalancerClientFactory loadBalancerClientFactory,
+            InstanceLatencyTracker instanceLatencyTracker,
+            @Value("${order.load-balancer.strategy:p2c}") String strategy,
+            @Value("${order.load-balancer.vendor-header:X-Vendor}") String vendorHeader,
+            @Value("${order.load-balancer.subset-size:0}") int subsetSize,
+            @Value("${order.load-balancer.client-index:-1}") int clientIndex,
+            @Value("${order.load-balancer.slow-start.window:60s}") String slowStartWindow,
+            @Value("${order.load-balancer.slow-start.min-weight-percent:10}") int slowStartMinWeightPercent,
+            ObjectProvider<EurekaClient> eurekaClient) {
 
-        String name = "product-service";
+        String name = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        // 子集划分要求客户端编号从 0 连续分配，编号稀疏或由哈希得到时各后端分到的客户端数不均，因此必须显式配置
+        if (subsetSize > 0 && clientIndex < 0) {
+            throw new IllegalStateException("order.load-balancer.subset-size=" + subsetSize
+                    + " requires order.load-balancer.client-index (0..N-1, unique per order-service instance)");
+        }
+        DeterministicSubsetter subsetter = subsetSize > 0
+                ? new DeterministicSubsetter(clientIndex, subsetSize)
+                : DeterministicSubsetter.disabled();
+        SlowStart slowStart = new SlowStart(DurationStyle.detectAndParse(slowStartWindow).toMillis(),
+                slowStartMinWeightPercent / 100.0);
         return new VendorAwareLoadBalancer(
                 loadBalancerClientFactory.getLazyProvider(name, ServiceInstanceListSupplier.class)
-                , name);
+                , name, strategy, vendorHeader, instanceLatencyTracker, subsetter, slowStart,
+                () -> registeredInstances(eurekaClient.getIfAvailable(), name));
+    }
+
+    /**
+     * Eureka 本地注册表中该服务的全部实例，包括 STARTING、DOWN 等非 UP 实例
+     */
+    private static List<ServiceInstance> registeredInstances(EurekaClient eurekaClient, String serviceId) {
+        Application application = eurekaClient != null ? eurekaClient.getApplication(serviceId) : null;
+        if (application == null) {
+            return List.of();
+        }
+        List<ServiceInstance> instances = new ArrayList<>();
+        for (InstanceInfo info : application.getInstancesAsIsFromEureka()) {
+            instances.add(new EurekaServiceInstance(info));
+        }
+        return instances;
     }
 }
\ No newline at end of file
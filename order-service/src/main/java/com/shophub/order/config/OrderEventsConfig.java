@@ -0,0 +1,20 @@
+package com.shophub.order.config;
+
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 订单事件交换机配置
+ * 与 Spring Cloud Stream 消费端声明的 order.events 一致（持久化 topic 交换机），
+ * 保证订单服务先于消费者启动时也能发布事件
+ */
+@Configuration
+public class OrderEventsConfig {
+
+    @Bean
+    public TopicExchange orderEventsExchange(@Value("${order.outbox.exchange:order.events}") String exchange) {
+        return new TopicExchange(exchange, true, false);
+    }
+}
@@ -0,0 +1,42 @@
+package com.shophub.order.config;
+
+import com.shophub.order.client.PaymentConcurrencyLimiter;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+
+import java.time.Duration;
+
+/**
+ * 支付服务 WebClient 配置
+ *
+ * 基于 Spring Boot 提供的 WebClient.Builder（保留追踪和指标埋点），
+ * 通过 Spring Cloud LoadBalancer 解析 payment-service 实例。
+ * 自适应并发限制在负载均衡之前执行，超过并发上限的请求不会选择实例。
+ */
+@Configuration
+public class PaymentWebClientConfig {
+
+    @Bean
+    public WebClient paymentWebClient(WebClient.Builder builder,
+                                      ReactorLoadBalancerExchangeFilterFunction loadBalancerFunction,
+                                      PaymentConcurrencyLimiter concurrencyLimiter,
+                                      @Value("${order.payment.connect-timeout:5s}") Duration connectTimeout,
+                                      @Value("${order.payment.read-timeout:15s}") Duration readTimeout) {
+        HttpClient httpClient = HttpClient.create()
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+            .responseTimeout(readTimeout);
+
+        return builder.clone()
+            .baseUrl("http://payment-service")
+            .filter(concurrencyLimiter)
+            .filter(loadBalancerFunction)
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .build();
+    }
+}
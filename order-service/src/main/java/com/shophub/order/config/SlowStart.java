@@ -0,0 +1,75 @@
+package com.shophub.order.config;
+
+import com.netflix.appinfo.LeaseInfo;
+import com.shophub.common.warmup.TrafficReplayWarmup;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.netflix.eureka.EurekaServiceInstance;
+
+import java.util.Map;
+
+/**
+ * 新实例慢启动
+ *
+ * 实例上线后的 window 时间内，权重从 minFactor 线性增加到 100%，JIT 尚未预热的新实例不会立即承担全部流量。
+ * 上线时间优先取 metadata-map 中的 registered-at（毫秒时间戳，注册前预热结束时写入），否则取 Eureka 租约的 serviceUpTimestamp
+ * （注册中心记录的实例变为 UP 的时间）；两者都没有时不做慢启动。
+ */
+final class SlowStart {
+
+    static final String REGISTERED_AT_METADATA_KEY = TrafficReplayWarmup.REGISTERED_AT_METADATA_KEY;
+
+    private final long windowMillis;
+    private final double minFactor;
+
+    SlowStart(long windowMillis, double minFactor) {
+        this.windowMillis = windowMillis;
+        this.minFactor = Math.max(0.01, Math.min(1.0, minFactor));
+    }
+
+    /**
+     * 实例当前的权重系数 (0, 1]
+     */
+    double factor(ServiceInstance instance, long now) {
+        if (windowMillis <= 0) {
+            return 1.0;
+        }
+        long registeredAt = registeredAt(instance);
+        if (registeredAt <= 0) {
+            return 1.0;
+        }
+        long elapsed = now - registeredAt;
+        if (elapsed >= windowMillis) {
+            return 1.0;
+        }
+        return Math.max(minFactor, (double) Math.max(0L, elapsed) / windowMillis);
+    }
+
+    /**
+     * 实例慢启动结束的时间，不在慢启动中时返回 0
+     */
+    long rampEndsAt(ServiceInstance instance, long now) {
+        if (windowMillis <= 0) {
+            return 0L;
+        }
+        long registeredAt = registeredAt(instance);
+        long endsAt = registeredAt > 0 ? registeredAt + windowMillis : 0L;
+        return endsAt > now ? endsAt : 0L;
+    }
+
+    private static long registeredAt(ServiceInstance instance) {
+        Map<String, String> metadata = instance.getMetadata();
+        String value = metadata != null ? metadata.get(REGISTERED_AT_METADATA_KEY) : null;
+        if (value != null && !value.isBlank()) {
+            try {
+                return Long.parseLong(value.trim());
+            } catch (NumberFormatException e) {
+                // 格式错误时退回注册中心记录的时间
+            }
+        }
+        if (instance instanceof EurekaServiceInstance eureka) {
+            LeaseInfo lease = eureka.getInstanceInfo().getLeaseInfo();
+            return lease != null ? lease.getServiceUpTimestamp() : 0L;
+        }
+        return 0L;
+    }
+}
@@ -1,68 +1,251 @@
 package com.shophub.order.config;
 
+import com.netflix.appinfo.InstanceInfo;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.loadbalancer.DefaultResponse;
 import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.HintRequestContext;
 import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
 import org.springframework.cloud.client.loadbalancer.Response;
 import org.springframework.cloud.loadbalancer.core.*;
+import org.springframework.cloud.netflix.eureka.EurekaServiceInstance;
+import org.springframework.util.StringUtils;
+import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * 自定义负载均衡器
  * 支持基于供应商的路由策略
+ *
+ * 实例按 Eureka metadata-map 的 vendor/weight 预先分区（见 VendorPartitions），
+ * 请求头 vendorHeader 或负载均衡 hint 指定了供应商时只在该供应商的实例中选择，
+ * 该供应商没有实例时退回全部实例。
+ * 配置 subset-size 后每个分区只使用本客户端的确定性子集，限制到每个后端实例的连接数；
+ * 子集在 registeredInstances 提供的全部已注册实例上划分，再在子集内过滤健康实例。
+ *
+ * 实例列表是一个不可变快照（只含 UP 状态的实例），来源是 ServiceInstanceListSupplier 链的输出：
+ * 订阅 supplier.get()，每次发出实例列表时替换快照，链中配置的缓存、健康检查、区域等过滤都会生效。
+ * 只发出一次就结束的 supplier（DiscoveryClient + 缓存）由 InstanceSnapshotRefresher 在 Eureka 每次拉取注册表后
+ * 重新订阅；持续发出的 supplier（如健康检查）保持同一个订阅。
+ * 选择实例时直接读取快照，不复制列表；收到第一个实例列表之前按原方式为每个请求读取 supplier。
+ *
+ * 分区内的实例选择支持三种策略：round-robin 轮询；weighted 平滑加权轮询；
+ * p2c (power of two choices) 随机取两个实例，选择 InstanceLatencyTracker 得分
+ * （EWMA 响应时间 x 进行中请求数 / 权重）较低的一个，慢实例或 GC 停顿中的实例会自动少分流量。
+ * 新上线实例在慢启动窗口内逐渐增加流量（见 SlowStart）：weighted 按慢启动系数缩小权重，
+ * p2c 中慢启动实例胜出时只以慢启动系数为概率保留，否则改选另一个实例。
  */
-public class VendorAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+public class VendorAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer, DisposableBean {
 
     private static final Log log = LogFactory.getLog(VendorAwareLoadBalancer.class);
 
+    public static final String STRATEGY_ROUND_ROBIN = "round-robin";
+    public static final String STRATEGY_POWER_OF_TWO = "p2c";
+    public static final String STRATEGY_WEIGHTED = "weighted";
+
+    private static final String DEFAULT_HINT = "default";
 
     private final String serviceId;
     private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
     private final AtomicInteger position = new AtomicInteger(0);
+    private final String strategy;
+    private final String vendorHeader;
+    private final InstanceLatencyTracker latencyTracker;
+    private final Supplier<List<ServiceInstance>> registeredInstances;
+    private volatile VendorPartitions partitions;
+    private volatile boolean snapshotReceived;
+    private volatile ServiceInstanceListSupplier supplier;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    private volatile Disposable subscription;
     
     public VendorAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
-                                  String serviceId) {
+                                  String serviceId, String strategy, String vendorHeader,
+                                  InstanceLatencyTracker latencyTracker, DeterministicSubsetter subsetter,
+                                  SlowStart slowStart, Supplier<List<ServiceInstance>> registeredInstances) {
         this.serviceId = serviceId;
+        this.partitions = VendorPartitions.build(List.of(), List.of(), subsetter, slowStart);
+        this.registeredInstances = registeredInstances;
         this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.strategy = strategy.toLowerCase();
+        this.vendorHeader = vendorHeader;
+        this.latencyTracker = latencyTracker;
     }
     
     @Override
     public Mono<Response<ServiceInstance>> choose(Request request) {
-        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
-                .getIfAvailable(NoopServiceInstanceListSupplier::new);
-        return serviceInstanceListSupplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new)
+        String vendor = requestedVendor(request);
+        if (snapshotReceived) {
+            return Mono.just(processInstanceResponse(advance(partitions), vendor));
+        }
+        return supplier()
                 .get(request)
                 .next()
-                .map(serviceInstances -> processInstanceResponse(supplier, serviceInstances));
+                .map(serviceInstances -> processInstanceResponse(advance(updateSnapshot(serviceInstances)), vendor));
+    }
+
+    /**
+     * 订阅 supplier 链（Eureka 注册表刷新后调用），每次发出实例列表时更新快照，实例和元数据未变化时保留现有快照；
+     * 上一次订阅仍未结束时不重复订阅
+     */
+    public void refresh() {
+        if (!subscribed.compareAndSet(false, true)) {
+            return;
+        }
+        subscription = supplier().get()
+                .doFinally(signal -> subscribed.set(false))
+                .subscribe(serviceInstances -> {
+                    updateSnapshot(serviceInstances);
+                    snapshotReceived = true;
+                }, e -> {
+                    if (log.isWarnEnabled()) {
+                        log.warn("Failed to refresh instance snapshot for " + serviceId + ": " + e.getMessage());
+                    }
+                });
+    }
+
+    @Override
+    public void destroy() {
+        Disposable current = subscription;
+        if (current != null) {
+            current.dispose();
+        }
+    }
+
+    private VendorPartitions updateSnapshot(List<ServiceInstance> serviceInstances) {
+        VendorPartitions current = partitions;
+        VendorPartitions updated = current.refresh(registeredInstances.get(), healthy(serviceInstances));
+        if (updated != current) {
+            partitions = updated;
+            latencyTracker.retain(updated.instances());
+            if (log.isInfoEnabled()) {
+                log.info("Instance snapshot for " + serviceId + " updated: " + updated.instances().size()
+                        + " instances, using " + updated.partition(null).size());
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * 慢启动期间定时按当前权重重建快照，平时直接返回
+     */
+    private VendorPartitions advance(VendorPartitions snapshot) {
+        VendorPartitions advanced = snapshot.advance();
+        if (advanced != snapshot) {
+            partitions = advanced;
+        }
+        return advanced;
+    }
+
+    /**
+     * 过滤掉 Eureka 状态不是 UP 的实例（DOWN、OUT_OF_SERVICE、STARTING 等）
+     */
+    private static List<ServiceInstance> healthy(List<ServiceInstance> serviceInstances) {
+        List<ServiceInstance> healthy = new ArrayList<>(serviceInstances.size());
+        for (ServiceInstance instance : serviceInstances) {
+            if (!(instance instanceof EurekaServiceInstance eureka)
+                    || eureka.getInstanceInfo().getStatus() == InstanceInfo.InstanceStatus.UP) {
+                healthy.add(instance);
+            }
+        }
+        return healthy;
+    }
+
+    private ServiceInstanceListSupplier supplier() {
+        ServiceInstanceListSupplier current = supplier;
+        if (current == null) {
+            current = serviceInstanceListSupplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+            supplier = current;
+        }
+        return current;
     }
-    
-    private Response<ServiceInstance> processInstanceResponse(
-            ServiceInstanceListSupplier supplier, List<ServiceInstance> serviceInstances) {
 
-        if (serviceInstances.isEmpty()) {
+    /**
+     * 请求指定的供应商：先看请求头，再看负载均衡 hint（spring.cloud.loadbalancer.hint.*）
+     */
+    private String requestedVendor(Request request) {
+        Object context = request.getContext();
+        if (context instanceof RequestDataContext dataContext && dataContext.getClientRequest() != null
+                && dataContext.getClientRequest().getHeaders() != null) {
+            String header = dataContext.getClientRequest().getHeaders().getFirst(vendorHeader);
+            if (StringUtils.hasText(header)) {
+                return header.trim();
+            }
+        }
+        if (context instanceof HintRequestContext hintContext
+                && StringUtils.hasText(hintContext.getHint()) && !DEFAULT_HINT.equals(hintContext.getHint())) {
+            return hintContext.getHint();
+        }
+        return null;
+    }
+    
+    private Response<ServiceInstance> processInstanceResponse(VendorPartitions snapshot, String vendor) {
+        VendorPartitions.Partition partition = snapshot.partition(vendor);
+        if (partition.size() == 0) {
             if (log.isWarnEnabled()) {
                 log.warn("No servers available for service: " + serviceId);
             }
             return new EmptyResponse();
         }
-        
-        // 默认使用轮询策略
-        int pos = Math.abs(this.position.incrementAndGet());
-        ServiceInstance instance = serviceInstances.get(pos % serviceInstances.size());
+
+        ServiceInstance instance = switch (strategy) {
+            case STRATEGY_POWER_OF_TWO -> choosePowerOfTwo(partition);
+            case STRATEGY_WEIGHTED -> partition.nextWeighted();
+            default -> chooseRoundRobin(partition);
+        };
 
         Response<ServiceInstance> serviceInstanceResponse = new DefaultResponse(instance);
 
+        ServiceInstanceListSupplier supplier = supplier();
         if (supplier instanceof SelectedInstanceCallback && serviceInstanceResponse.hasServer()) {
             ((SelectedInstanceCallback) supplier).selectedServiceInstance(serviceInstanceResponse.getServer());
         }
 
         return serviceInstanceResponse;
     }
+
+    private ServiceInstance chooseRoundRobin(VendorPartitions.Partition partition) {
+        int pos = this.position.incrementAndGet() & Integer.MAX_VALUE;
+        return partition.get(pos % partition.size());
+    }
+
+    /**
+     * 随机取两个不同的实例，返回 得分/权重 较低者；相同时取第一个（本身是随机的）。
+     * 慢启动不能只体现在权重上：新实例没有样本、没有进行中请求时得分为 0，除以任何权重都是 0，
+     * 总会胜出。因此胜出者处于慢启动时，只以其慢启动系数为概率保留，否则改选另一个实例
+     */
+    private ServiceInstance choosePowerOfTwo(VendorPartitions.Partition partition) {
+        int size = partition.size();
+        if (size == 1) {
+            return partition.get(0);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        long now = System.nanoTime();
+        double firstCost = latencyTracker.cost(partition.get(first), now) / partition.metadataWeight(first);
+        double secondCost = latencyTracker.cost(partition.get(second), now) / partition.metadataWeight(second);
+        int winner = secondCost < firstCost ? second : first;
+        int loser = winner == first ? second : first;
+        double rampFactor = partition.rampFactor(winner);
+        if (rampFactor < 1.0 && random.nextDouble() >= rampFactor) {
+            winner = loser;
+        }
+        return partition.get(winner);
+    }
 }
\ No newline at end of file
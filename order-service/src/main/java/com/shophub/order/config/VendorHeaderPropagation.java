@@ -0,0 +1,84 @@
+package com.shophub.order.config;
+
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.function.Supplier;
+
+/**
+ * 供应商请求头传播
+ *
+ * 把入站请求的供应商请求头（order.load-balancer.vendor-header，默认 X-Vendor）带到出站的 Feign 调用上，
+ * VendorAwareLoadBalancer 据此只在该供应商的 product-service 实例中选择。
+ * 请求线程上直接读取当前请求；在其他线程池中发出的调用，由提交方用 wrap 在提交时取出供应商带过去
+ * （只带字符串，不跨线程共享请求对象，任务晚于请求结束执行也安全）。
+ * 出站请求已显式设置该请求头时不覆盖。
+ */
+@Component
+public class VendorHeaderPropagation implements RequestInterceptor {
+
+    private static final ThreadLocal<String> VENDOR = new ThreadLocal<>();
+
+    @Value("${order.load-balancer.vendor-header:X-Vendor}")
+    private String vendorHeader;
+
+    @Override
+    public void apply(RequestTemplate template) {
+        if (template.headers().containsKey(vendorHeader)) {
+            return;
+        }
+        String vendor = currentVendor();
+        if (vendor != null) {
+            template.header(vendorHeader, vendor);
+        }
+    }
+
+    /**
+     * 当前线程上的供应商：wrap 传入的优先，其次是当前入站请求的请求头，都没有时返回 null
+     */
+    public String currentVendor() {
+        String vendor = VENDOR.get();
+        if (vendor != null) {
+            return vendor;
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            HttpServletRequest request = servletAttributes.getRequest();
+            String header = request.getHeader(vendorHeader);
+            if (StringUtils.hasText(header)) {
+                return header.trim();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 在提交线程上取出当前供应商，返回的任务在执行线程上带着该供应商运行
+     */
+    public <T> Supplier<T> wrap(Supplier<T> task) {
+        String vendor = currentVendor();
+        if (vendor == null) {
+            return task;
+        }
+        return () -> {
+            String previous = VENDOR.get();
+            VENDOR.set(vendor);
+            try {
+                return task.get();
+            } finally {
+                if (previous != null) {
+                    VENDOR.set(previous);
+                } else {
+                    VENDOR.remove();
+                }
+            }
+        };
+    }
+}
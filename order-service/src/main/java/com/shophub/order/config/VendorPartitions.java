@@ -0,0 +1,312 @@
+package com.shophub.order.config;
+
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按供应商分区的实例列表
+ *
+ * 根据 Eureka metadata-map 中的 vendor 和 weight 把实例分区，每个分区预先生成一轮
+ * 平滑加权轮询 (smooth weighted round-robin) 的选择序列，选择实例时只需递增下标，O(1)。
+ * 实例列表不变时复用同一个对象（包括轮询位置），只有实例或其 vendor/weight 变化时才重建。
+ * 启用子集划分时，每个分区只保留本客户端的确定性子集（见 DeterministicSubsetter）。子集在全部已注册实例
+ * （包括非 UP 实例）上划分，再从子集中选出可用实例，实例的健康状态变化不会改变其他实例的子集归属；
+ * 子集内没有可用实例时退回分区内的全部可用实例。
+ * 有实例处于慢启动（见 SlowStart）时，权重随时间变化，分区每 RAMP_REBUILD_INTERVAL_MS 按当前权重重建一次，
+ * 慢启动全部结束后不再重建。
+ */
+final class VendorPartitions {
+
+    static final String VENDOR_METADATA_KEY = "vendor";
+    static final String WEIGHT_METADATA_KEY = "weight";
+
+    static final int DEFAULT_WEIGHT = 1;
+    static final int MAX_WEIGHT = 1000;
+
+    /** 一轮选择序列的最大长度，权重和超过时按比例缩小 */
+    private static final int MAX_SCHEDULE_LENGTH = 4096;
+
+    /** metadata 权重放大的倍数，使慢启动的系数（如 10%）也能用整数权重表示 */
+    private static final int WEIGHT_SCALE = 100;
+
+    static final long RAMP_REBUILD_INTERVAL_MS = 1000L;
+
+    private final List<ServiceInstance> registered;
+    private final List<ServiceInstance> source;
+    private final List<String> signature;
+    private final DeterministicSubsetter subsetter;
+    private final SlowStart slowStart;
+    private final Partition all;
+    private final Map<String, Partition> byVendor;
+    private final long nextRebuildAt;
+
+    private VendorPartitions(List<ServiceInstance> registered, List<ServiceInstance> source, List<String> signature,
+                             DeterministicSubsetter subsetter, SlowStart slowStart, Partition all,
+                             Map<String, Partition> byVendor, long nextRebuildAt) {
+        this.registered = registered;
+        this.source = source;
+        this.signature = signature;
+        this.subsetter = subsetter;
+        this.slowStart = slowStart;
+        this.all = all;
+        this.byVendor = byVendor;
+        this.nextRebuildAt = nextRebuildAt;
+    }
+
+    /**
+     * registered 为全部已注册实例，用于划分子集，为空时使用 instances；instances 为可用实例
+     */
+    static VendorPartitions build(List<ServiceInstance> registered, List<ServiceInstance> instances,
+                                  DeterministicSubsetter subsetter, SlowStart slowStart) {
+        long now = System.currentTimeMillis();
+        List<ServiceInstance> population = registered.isEmpty() ? instances : registered;
+        Map<String, List<ServiceInstance>> grouped = groupByVendor(instances);
+        Map<String, List<ServiceInstance>> registeredByVendor = groupByVendor(population);
+        boolean ramping = false;
+        for (ServiceInstance instance : instances) {
+            ramping |= slowStart.rampEndsAt(instance, now) > 0;
+        }
+        Map<String, Partition> byVendor = new HashMap<>();
+        grouped.forEach((vendor, members) -> byVendor.put(vendor, new Partition(
+            inSubset(members, registeredByVendor.getOrDefault(vendor, members), subsetter), slowStart, now)));
+        return new VendorPartitions(List.copyOf(registered), List.copyOf(instances), signature(registered, instances),
+            subsetter, slowStart, new Partition(inSubset(instances, population, subsetter), slowStart, now),
+            Collections.unmodifiableMap(byVendor), ramping ? now + RAMP_REBUILD_INTERVAL_MS : Long.MAX_VALUE);
+    }
+
+    /**
+     * 已注册实例或可用实例变化时返回重建后的分区，否则返回当前对象（保留轮询位置）
+     */
+    VendorPartitions refresh(List<ServiceInstance> registered, List<ServiceInstance> instances) {
+        if (signature.equals(signature(registered, instances))) {
+            return this;
+        }
+        return build(registered, instances, subsetter, slowStart);
+    }
+
+    /**
+     * 有实例处于慢启动时，到了重建时间按当前权重重建；否则返回当前对象
+     */
+    VendorPartitions advance() {
+        if (nextRebuildAt == Long.MAX_VALUE || System.currentTimeMillis() < nextRebuildAt) {
+            return this;
+        }
+        return build(registered, source, subsetter, slowStart);
+    }
+
+    /**
+     * 全部可用实例（子集划分之前）
+     */
+    List<ServiceInstance> instances() {
+        return source;
+    }
+
+    /**
+     * 指定供应商的分区；供应商为空或没有该供应商的实例时返回全部实例
+     */
+    Partition partition(String vendor) {
+        if (vendor == null) {
+            return all;
+        }
+        Partition partition = byVendor.get(vendor);
+        return partition != null ? partition : all;
+    }
+
+    static String instanceKey(ServiceInstance instance) {
+        return instance.getInstanceId() != null
+            ? instance.getInstanceId()
+            : instance.getHost() + ":" + instance.getPort();
+    }
+
+    static String vendorOf(ServiceInstance instance) {
+        Map<String, String> metadata = instance.getMetadata();
+        String vendor = metadata != null ? metadata.get(VENDOR_METADATA_KEY) : null;
+        return vendor == null || vendor.isBlank() ? null : vendor.trim();
+    }
+
+    static int weightOf(ServiceInstance instance) {
+        Map<String, String> metadata = instance.getMetadata();
+        String weight = metadata != null ? metadata.get(WEIGHT_METADATA_KEY) : null;
+        if (weight == null) {
+            return DEFAULT_WEIGHT;
+        }
+        try {
+            return Math.max(1, Math.min(MAX_WEIGHT, Integer.parseInt(weight.trim())));
+        } catch (NumberFormatException e) {
+            return DEFAULT_WEIGHT;
+        }
+    }
+
+    private static Map<String, List<ServiceInstance>> groupByVendor(List<ServiceInstance> instances) {
+        Map<String, List<ServiceInstance>> grouped = new LinkedHashMap<>();
+        for (ServiceInstance instance : instances) {
+            String vendor = vendorOf(instance);
+            if (vendor != null) {
+                grouped.computeIfAbsent(vendor, v -> new ArrayList<>()).add(instance);
+            }
+        }
+        return grouped;
+    }
+
+    /**
+     * 在 population 上划分子集，返回 members 中属于子集的实例；
+     * 未缩小范围（未启用或实例数不超过 subsetSize）或子集内没有可用实例时返回 members
+     */
+    private static List<ServiceInstance> inSubset(List<ServiceInstance> members, List<ServiceInstance> population,
+                                                  DeterministicSubsetter subsetter) {
+        List<ServiceInstance> subset = subsetter.subset(population);
+        if (subset.size() >= population.size()) {
+            return members;
+        }
+        Set<String> keys = new HashSet<>();
+        for (ServiceInstance instance : subset) {
+            keys.add(instanceKey(instance));
+        }
+        List<ServiceInstance> selected = new ArrayList<>(subset.size());
+        for (ServiceInstance instance : members) {
+            if (keys.contains(instanceKey(instance))) {
+                selected.add(instance);
+            }
+        }
+        return selected.isEmpty() ? members : selected;
+    }
+
+    private static List<String> signature(List<ServiceInstance> registered, List<ServiceInstance> instances) {
+        // 子集只取决于已注册实例的标识和 vendor，与注册表返回的顺序无关
+        List<String> signature = new ArrayList<>(registered.size() + instances.size() + 1);
+        for (ServiceInstance instance : registered) {
+            signature.add(instanceKey(instance) + "/" + Objects.toString(vendorOf(instance), ""));
+        }
+        Collections.sort(signature);
+        signature.add("|");
+        for (ServiceInstance instance : instances) {
+            signature.add(instance.getInstanceId() + "@" + instance.getHost() + ":" + instance.getPort()
+                + "/" + Objects.toString(vendorOf(instance), "") + "/" + weightOf(instance));
+        }
+        return signature;
+    }
+
+    /**
+     * 一个分区：实例、metadata 权重、慢启动系数和预先生成的平滑加权轮询序列（按 metadata 权重 x 慢启动系数）。
+     * 轮询从序列中的随机位置开始，重建后不会总是先选序列开头的实例，多个客户端也不会步调一致。
+     */
+    static final class Partition {
+
+        private final List<ServiceInstance> instances;
+        private final int[] metadataWeights;
+        private final double[] rampFactors;
+        private final ServiceInstance[] schedule;
+        private final AtomicInteger cursor;
+
+        private Partition(List<ServiceInstance> instances, SlowStart slowStart, long now) {
+            this.instances = List.copyOf(instances);
+            this.metadataWeights = new int[instances.size()];
+            this.rampFactors = new double[instances.size()];
+            int[] weights = new int[instances.size()];
+            for (int i = 0; i < weights.length; i++) {
+                ServiceInstance instance = instances.get(i);
+                metadataWeights[i] = weightOf(instance);
+                rampFactors[i] = slowStart.factor(instance, now);
+                weights[i] = Math.max(1, (int) Math.round(metadataWeights[i] * WEIGHT_SCALE * rampFactors[i]));
+            }
+            this.schedule = smoothSchedule(this.instances, weights);
+            this.cursor = new AtomicInteger(schedule.length > 1 ? ThreadLocalRandom.current().nextInt(schedule.length) : 0);
+        }
+
+        List<ServiceInstance> instances() {
+            return instances;
+        }
+
+        int size() {
+            return instances.size();
+        }
+
+        ServiceInstance get(int index) {
+            return instances.get(index);
+        }
+
+        /**
+         * metadata 中的权重，不含慢启动系数
+         */
+        int metadataWeight(int index) {
+            return metadataWeights[index];
+        }
+
+        /**
+         * 慢启动系数 (0, 1]，不在慢启动中时为 1
+         */
+        double rampFactor(int index) {
+            return rampFactors[index];
+        }
+
+        /**
+         * 平滑加权轮询的下一个实例
+         */
+        ServiceInstance nextWeighted() {
+            int pos = cursor.getAndIncrement() & Integer.MAX_VALUE;
+            return schedule[pos % schedule.length];
+        }
+
+        /**
+         * nginx 的平滑加权轮询：每步所有实例的当前值加上各自权重，选当前值最大者并减去总权重。
+         * 一轮的长度等于权重和，权重为 5:1:1 时序列为 a a b a c a a 而不是 a a a a a b c
+         */
+        private static ServiceInstance[] smoothSchedule(List<ServiceInstance> instances, int[] weights) {
+            if (instances.isEmpty()) {
+                return new ServiceInstance[0];
+            }
+            int[] scaled = scale(weights);
+            int total = 0;
+            for (int w : scaled) {
+                total += w;
+            }
+            int[] current = new int[scaled.length];
+            ServiceInstance[] schedule = new ServiceInstance[total];
+            for (int step = 0; step < total; step++) {
+                int best = 0;
+                for (int i = 0; i < scaled.length; i++) {
+                    current[i] += scaled[i];
+                    if (current[i] > current[best]) {
+                        best = i;
+                    }
+                }
+                current[best] -= total;
+                schedule[step] = instances.get(best);
+            }
+            return schedule;
+        }
+
+        /**
+         * 按最大公约数约简权重；权重和仍超过 MAX_SCHEDULE_LENGTH 时按比例缩小（每个实例至少为 1）
+         */
+        private static int[] scale(int[] weights) {
+            int gcd = 0;
+            long total = 0;
+            for (int w : weights) {
+                gcd = gcd(gcd, w);
+                total += w;
+            }
+            int[] scaled = new int[weights.length];
+            double factor = total / gcd > MAX_SCHEDULE_LENGTH ? (double) MAX_SCHEDULE_LENGTH / total : 1.0 / gcd;
+            for (int i = 0; i < weights.length; i++) {
+                scaled[i] = Math.max(1, (int) Math.round(weights[i] * factor));
+            }
+            return scaled;
+        }
+
+        private static int gcd(int a, int b) {
+            return b == 0 ? a : gcd(b, a % b);
+        }
+    }
+}
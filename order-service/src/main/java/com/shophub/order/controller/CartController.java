@@ -0,0 +1,194 @@
+package com.shophub.order.controller;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.shophub.order.service.CartService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 购物车控制器
+ *
+ * 快速下单 (feature.order.express-checkout)：商品逐个加入购物车，
+ * POST /api/orders/cart/{userId}/checkout 一次调用完成下单
+ * 请求内容有误时返回 400；购物车存储或下单依赖的服务不可用时返回 503，客户端可以重试
+ */
+@RestController
+@RequestMapping("/api/orders/cart")
+@CrossOrigin(origins = "*")
+public class CartController {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartController.class);
+
+    @Autowired
+    private CartService cartService;
+
+    @Value("${feature.order.express-checkout:false}")
+    private boolean expressCheckoutEnabled;
+
+    /**
+     * 查看购物车
+     * GET /api/orders/cart/{userId}
+     */
+    @GetMapping("/{userId}")
+    public ResponseEntity<Map<String, Object>> getCart(@PathVariable Long userId) {
+        if (!expressCheckoutEnabled) {
+            return disabled();
+        }
+        try {
+            return ResponseEntity.ok(cartResponse(userId));
+        } catch (DataAccessException e) {
+            return unavailable(userId, e);
+        }
+    }
+
+    /**
+     * 加入商品（数量累加，quantity 为负数时减少）
+     * POST /api/orders/cart/{userId}/items  {"productId": 1, "quantity": 2}
+     */
+    @PostMapping("/{userId}/items")
+    public ResponseEntity<Map<String, Object>> addItem(@PathVariable Long userId, @RequestBody Map<String, Object> itemRequest) {
+        if (!expressCheckoutEnabled) {
+            return disabled();
+        }
+        if (!(itemRequest.get("productId") instanceof Number productId)) {
+            return error(HttpStatus.BAD_REQUEST, "加入购物车失败: 缺少 productId");
+        }
+        int quantity = itemRequest.get("quantity") instanceof Number number ? number.intValue() : 1;
+        try {
+            int updated = cartService.addItem(userId, productId.longValue(), quantity);
+            Map<String, Object> response = cartResponse(userId);
+            response.put("productId", productId.longValue());
+            response.put("quantity", updated);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, "加入购物车失败: " + e.getMessage());
+        } catch (DataAccessException e) {
+            return unavailable(userId, e);
+        }
+    }
+
+    /**
+     * 设置商品数量，quantity 为 0 时删除
+     * PUT /api/orders/cart/{userId}/items/{productId}  {"quantity": 3}
+     */
+    @PutMapping("/{userId}/items/{productId}")
+    public ResponseEntity<Map<String, Object>> setItem(@PathVariable Long userId, @PathVariable Long productId,
+                                                       @RequestBody Map<String, Object> itemRequest) {
+        if (!expressCheckoutEnabled) {
+            return disabled();
+        }
+        if (!(itemRequest.get("quantity") instanceof Number quantity)) {
+            return error(HttpStatus.BAD_REQUEST, "更新购物车失败: 缺少 quantity");
+        }
+        try {
+            cartService.setItem(userId, productId, quantity.intValue());
+            return ResponseEntity.ok(cartResponse(userId));
+        } catch (IllegalArgumentException e) {
+            return error(HttpStatus.BAD_REQUEST, "更新购物车失败: " + e.getMessage());
+        } catch (DataAccessException e) {
+            return unavailable(userId, e);
+        }
+    }
+
+    /**
+     * 删除商品
+     * DELETE /api/orders/cart/{userId}/items/{productId}
+     */
+    @DeleteMapping("/{userId}/items/{productId}")
+    public ResponseEntity<Map<String, Object>> removeItem(@PathVariable Long userId, @PathVariable Long productId) {
+        if (!expressCheckoutEnabled) {
+            return disabled();
+        }
+        try {
+            cartService.removeItem(userId, productId);
+            return ResponseEntity.ok(cartResponse(userId));
+        } catch (DataAccessException e) {
+            return unavailable(userId, e);
+        }
+    }
+
+    /**
+     * 清空购物车
+     * DELETE /api/orders/cart/{userId}
+     */
+    @DeleteMapping("/{userId}")
+    public ResponseEntity<Map<String, Object>> clearCart(@PathVariable Long userId) {
+        if (!expressCheckoutEnabled) {
+            return disabled();
+        }
+        try {
+            cartService.clearCart(userId);
+            return ResponseEntity.ok(cartResponse(userId));
+        } catch (DataAccessException e) {
+            return unavailable(userId, e);
+        }
+    }
+
+    /**
+     * 购物车一键下单
+     * POST /api/orders/cart/{userId}/checkout
+     */
+    @PostMapping("/{userId}/checkout")
+    public ResponseEntity<Map<String, Object>> checkout(@PathVariable Long userId) {
+        if (!expressCheckoutEnabled) {
+            return disabled();
+        }
+        CartService.CheckoutResult result;
+        try {
+            result = cartService.checkout(userId);
+        } catch (DataAccessException e) {
+            return unavailable(userId, e);
+        }
+        if (!result.isSuccess()) {
+            return error(result.unavailable() ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.BAD_REQUEST, result.error());
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "订单创建成功");
+        response.put("orderId", result.order().getId());
+        response.put("order", result.order());
+        return ResponseEntity.ok(response);
+    }
+
+    private Map<String, Object> cartResponse(Long userId) {
+        Map<Long, Integer> items = cartService.getCart(userId);
+        Map<String, Object> response = new HashMap<>();
+        response.put("userId", userId);
+        response.put("items", items);
+        response.put("itemCount", items.values().stream().mapToInt(Integer::intValue).sum());
+        return response;
+    }
+
+    private static ResponseEntity<Map<String, Object>> disabled() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("enabled", false);
+        response.put("message", "快速下单功能已关闭");
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+    }
+
+    private static ResponseEntity<Map<String, Object>> unavailable(Long userId, DataAccessException e) {
+        logger.warn("Cart store unavailable for user {}: {}", userId, e.getMessage());
+        return error(HttpStatus.SERVICE_UNAVAILABLE, "购物车服务暂不可用，请稍后重试");
+    }
+
+    private static ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("error", message);
+        return ResponseEntity.status(status).body(response);
+    }
+}
@@ -1,20 +1,46 @@
 package com.shophub.order.controller;
 
-import java.math.BigDecimal;
-import java.util.Arrays;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
-import com.shophub.order.feign.PaymentServiceClient;
-import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
-import io.github.resilience4j.retry.annotation.Retry;
+import com.shophub.common.money.Money;
+import com.shophub.order.archive.OrderArchive;
+import com.shophub.order.client.PaymentConcurrencyLimiter;
+import com.shophub.order.config.AsyncRequestTimeoutConfig;
+import com.shophub.order.model.Order;
+import com.shophub.order.model.OrderStatus;
+import com.shophub.order.model.PaymentSaga;
+import com.shophub.order.model.PaymentSagaState;
+import com.shophub.order.service.BulkOrderService;
+import com.shophub.order.service.OrderExpiryService;
+import com.shophub.order.service.OrderExportService;
+import com.shophub.order.service.OrderPaymentService;
+import com.shophub.order.service.OrderService;
+import com.shophub.order.service.OrderStatistics;
+import com.shophub.order.service.OrderStatusStreamHub;
+import com.shophub.order.service.PaymentSagaOrchestrator;
+import com.shophub.order.service.PricingService;
+import com.shophub.order.service.ProductNearCache;
+import com.shophub.order.service.ProductValidationService;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import io.micrometer.tracing.annotation.NewSpan;
 import io.micrometer.tracing.annotation.SpanTag;
+import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -23,7 +49,13 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.shophub.order.feign.ProductServiceClient;
 
@@ -40,31 +72,82 @@ import com.shophub.order.feign.ProductServiceClient;
 public class OrderController {
     
     private static final Logger logger = LoggerFactory.getLogger(OrderController.class);
+
+    private static final String EXPORT_PERMIT_INTERCEPTOR = OrderController.class.getName() + ".exportPermit";
+    
+    @Autowired
+    private OrderService orderService;
+    
+    @Autowired
+    private BulkOrderService bulkOrderService;
+    
+    @Autowired
+    private OrderExportService orderExportService;
+    
+    @Autowired
+    private OrderStatistics orderStatistics;
+    
+    @Autowired
+    private OrderArchive orderArchive;
+    
+    @Autowired
+    private OrderExpiryService orderExpiryService;
+    
+    @Autowired
+    private OrderStatusStreamHub orderStatusStreamHub;
+    
+    @Autowired
+    private ProductValidationService productValidationService;
+    
+    @Autowired
+    private ProductNearCache productNearCache;
+    
+    @Autowired
+    private PricingService pricingService;
     
     @Autowired
     private ProductServiceClient productServiceClient;
     
     @Autowired
-    private PaymentServiceClient paymentServiceClient;
+    private OrderPaymentService orderPaymentService;
+    
+    @Autowired
+    private PaymentSagaOrchestrator paymentSagaOrchestrator;
     
     @Autowired
     private CircuitBreakerRegistry circuitBreakerRegistry;
     
-    // 模拟订单数据 (实际项目中应该连接数据库)
-    private static final List<Map<String, Object>> MOCK_ORDERS = Arrays.asList(
-        createOrder(1L, 1L, Arrays.asList(1L, 2L), "COMPLETED", 24998.00),
-        createOrder(2L, 2L, Arrays.asList(3L), "PROCESSING", 6999.00),
-        createOrder(3L, 1L, Arrays.asList(5L), "PENDING", 4299.00),
-        createOrder(4L, 3L, Arrays.asList(1L, 5L), "SHIPPED", 13298.00)
-    );
+    @Autowired
+    private PaymentConcurrencyLimiter paymentConcurrencyLimiter;
+    
+    @Value("${feature.order.bulk-orders:false}")
+    private boolean bulkOrdersEnabled;
+    
+    @Value("${order.bulk.max-orders:5000}")
+    private int maxBulkOrders;
+    
+    @Value("${order.export.timeout:30m}")
+    private Duration exportTimeout;
     
     /**
-     * 获取所有订单
+     * 按创建时间范围 [from, to)（epoch 毫秒）查询订单，按创建时间升序，最多返回 limit 条（上限 10000）；
+     * 不指定 from/to 时查询 [0, 当前时间]
+     * 只返回内存中的热订单，包括已归档订单的查询使用 /api/orders/export
      * GET /api/orders
+     * GET /api/orders?from=1704067200000&to=1704153600000&limit=1000
      */
     @GetMapping
-    public ResponseEntity<List<Map<String, Object>>> getAllOrders() {
-        return ResponseEntity.ok(MOCK_ORDERS);
+    public ResponseEntity<?> getAllOrders(
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to,
+            @RequestParam(defaultValue = "1000") int limit) {
+        long rangeFrom = from != null ? from : 0L;
+        long rangeTo = to != null ? to : System.currentTimeMillis() + 1;
+        if (rangeFrom >= rangeTo) {
+            return ResponseEntity.badRequest().body("查询失败: from 必须小于 to");
+        }
+        int maxResults = Math.max(1, Math.min(limit, 10_000));
+        return ResponseEntity.ok(orderService.getOrdersCreatedBetween(rangeFrom, rangeTo, maxResults));
     }
     
     /**
@@ -73,42 +156,90 @@ public class OrderController {
      */
     @GetMapping("/{orderId}")
     public ResponseEntity<?> getOrderById(@PathVariable Long orderId) {
-        Map<String, Object> order = MOCK_ORDERS.stream()
-            .filter(o -> orderId.equals(o.get("id")))
-            .findFirst()
-            .orElse(null);
-        
-        if (order != null) {
-            return ResponseEntity.ok(order);
-        } else {
-            return ResponseEntity.notFound().build();
-        }
+        return orderService.getOrder(orderId)
+            .<ResponseEntity<?>>map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.notFound().build());
     }
     
     /**
-     * 根据用户ID获取订单列表
+     * 根据用户ID获取订单列表（只含热订单，包括已归档订单使用 /api/orders/export?userId=）
      * GET /api/orders/user/{userId}
      */
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<Map<String, Object>>> getOrdersByUserId(@PathVariable Long userId) {
-        List<Map<String, Object>> userOrders = MOCK_ORDERS.stream()
-            .filter(order -> userId.equals(order.get("userId")))
-            .toList();
-        
-        return ResponseEntity.ok(userOrders);
+    public ResponseEntity<List<Order>> getOrdersByUserId(@PathVariable Long userId) {
+        return ResponseEntity.ok(orderService.getOrdersByUserId(userId));
+    }
+    
+    /**
+     * 订阅用户订单的状态变更（Server-Sent Events），替代轮询订单详情
+     * GET /api/orders/user/{userId}/status-stream
+     */
+    @GetMapping(value = "/user/{userId}/status-stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamOrderStatus(@PathVariable Long userId) {
+        if (!orderStatusStreamHub.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return orderStatusStreamHub.subscribe(userId)
+            .map(ResponseEntity::ok)
+            .orElseGet(() -> ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build());
     }
     
     /**
-     * 根据状态获取订单列表
+     * 根据状态获取订单列表（只含热订单，已归档的 COMPLETED/CANCELLED 订单不在其中）
      * GET /api/orders/status/{status}
      */
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<Map<String, Object>>> getOrdersByStatus(@PathVariable String status) {
-        List<Map<String, Object>> statusOrders = MOCK_ORDERS.stream()
-            .filter(order -> status.equalsIgnoreCase((String) order.get("status")))
-            .toList();
+    public ResponseEntity<List<Order>> getOrdersByStatus(@PathVariable String status) {
+        OrderStatus orderStatus = OrderStatus.fromString(status);
+        if (orderStatus == null) {
+            return ResponseEntity.ok(List.of());
+        }
+        return ResponseEntity.ok(orderService.getOrdersByStatus(orderStatus));
+    }
+    
+    /**
+     * 流式导出订单（包括已归档订单），userId 和 from/to（epoch 毫秒）可任意组合
+     * GET /api/orders/export?format=csv&userId=1
+     * GET /api/orders/export?format=ndjson&from=1704067200000&to=1735689600000
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) Long from,
+            @RequestParam(required = false) Long to,
+            @RequestParam(defaultValue = "csv") String format,
+            HttpServletRequest request) {
+        OrderExportService.Format exportFormat = OrderExportService.Format.fromString(format);
+        if (exportFormat == null) {
+            return exportError(HttpStatus.BAD_REQUEST, "导出失败: 不支持的格式 " + format);
+        }
+        long rangeFrom = from != null ? from : Long.MIN_VALUE;
+        long rangeTo = to != null ? to : Long.MAX_VALUE;
+        if (rangeFrom >= rangeTo) {
+            return exportError(HttpStatus.BAD_REQUEST, "导出失败: from 必须小于 to");
+        }
+        Optional<OrderExportService.ExportPermit> permit = orderExportService.tryBeginExport();
+        if (permit.isEmpty()) {
+            return exportError(HttpStatus.TOO_MANY_REQUESTS, "导出失败: 同时进行的导出过多，请稍后重试");
+        }
+        // 异步处理结束（正常完成、超时、出错或客户端断开）时都归还名额，响应体没有执行过也不会泄漏
+        OrderExportService.ExportPermit exportPermit = permit.get();
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(EXPORT_PERMIT_INTERCEPTOR,
+            new CallableProcessingInterceptor() {
+                @Override
+                public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+                    exportPermit.release();
+                }
+            });
         
-        return ResponseEntity.ok(statusOrders);
+        // 导出可能持续数分钟，不受按支付调用设定的全局异步超时限制
+        request.setAttribute(AsyncRequestTimeoutConfig.TIMEOUT_ATTRIBUTE, exportTimeout.toMillis());
+        OrderExportService.ExportQuery query = new OrderExportService.ExportQuery(userId, rangeFrom, rangeTo);
+        String filename = "orders-" + System.currentTimeMillis() + "." + exportFormat.getExtension();
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+            .body(out -> orderExportService.export(query, exportFormat, out, exportPermit));
     }
     
     /**
@@ -118,19 +249,29 @@ public class OrderController {
     @PostMapping
     public ResponseEntity<?> createOrder(@RequestBody Map<String, Object> orderRequest) {
         try {
-            // 模拟订单创建逻辑
-            Long newOrderId = (long) (MOCK_ORDERS.size() + 1);
-            Map<String, Object> newOrder = new HashMap<>();
-            newOrder.put("id", newOrderId);
-            newOrder.put("userId", orderRequest.get("userId"));
-            newOrder.put("productIds", orderRequest.get("productIds"));
-            newOrder.put("status", "PENDING");
-            newOrder.put("totalAmount", orderRequest.get("totalAmount"));
-            newOrder.put("createdAt", System.currentTimeMillis());
+            if (!(orderRequest.get("userId") instanceof Number userId)) {
+                return ResponseEntity.badRequest().body("创建订单失败: 缺少 userId");
+            }
+            List<Long> productIds = toProductIds(orderRequest.get("productIds"));
+            if (productIds.isEmpty()) {
+                return ResponseEntity.badRequest().body("创建订单失败: 缺少 productIds");
+            }
+            
+            // 并发校验所有产品
+            ProductValidationService.ValidationResult validation = productValidationService.validateProducts(productIds);
+            if (!validation.isValid()) {
+                return validationFailure(validation);
+            }
+            
+            Order newOrder = orderService.createOrder(
+                userId.longValue(),
+                productIds,
+                orderRequest.get("totalAmount") instanceof Number amount ? pricingService.toMoney(amount) : null
+            );
             
             return ResponseEntity.ok(Map.of(
                 "message", "订单创建成功",
-                "orderId", newOrderId,
+                "orderId", newOrder.getId(),
                 "order", newOrder
             ));
         } catch (Exception e) {
@@ -139,20 +280,97 @@ public class OrderController {
     }
     
     /**
-     * 更新订单状态
+     * 批量创建订单，逐单返回结果，单个订单失败不影响其他订单
+     * POST /api/orders/bulk
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<Map<String, Object>> createOrdersInBulk(@RequestBody Map<String, Object> bulkRequest) {
+        Map<String, Object> response = new HashMap<>();
+        if (!bulkOrdersEnabled) {
+            response.put("enabled", false);
+            response.put("message", "批量下单功能已关闭");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+        }
+        if (!(bulkRequest.get("orders") instanceof List<?> orders) || orders.isEmpty()) {
+            response.put("error", "批量下单失败: 缺少 orders");
+            return ResponseEntity.badRequest().body(response);
+        }
+        if (orders.size() > maxBulkOrders) {
+            response.put("error", "批量下单失败: 单次最多 " + maxBulkOrders + " 个订单");
+            return ResponseEntity.badRequest().body(response);
+        }
+        
+        long start = System.currentTimeMillis();
+        List<BulkOrderService.BulkOrderResult> results = new ArrayList<>(orders.size());
+        List<BulkOrderService.BulkOrderItem> items = new ArrayList<>(orders.size());
+        List<Integer> itemSlots = new ArrayList<>(orders.size());
+        for (int index = 0; index < orders.size(); index++) {
+            Object order = orders.get(index);
+            Map<?, ?> orderRequest = order instanceof Map<?, ?> map ? map : Map.of();
+            List<Long> productIds = toProductIds(orderRequest.get("productIds"));
+            if (!(orderRequest.get("userId") instanceof Number userId)) {
+                results.add(BulkOrderService.BulkOrderResult.failure(index, "缺少 userId"));
+            } else if (productIds.isEmpty()) {
+                results.add(BulkOrderService.BulkOrderResult.failure(index, "缺少 productIds"));
+            } else {
+                Money totalAmount;
+                try {
+                    totalAmount = orderRequest.get("totalAmount") instanceof Number amount ? pricingService.toMoney(amount) : null;
+                } catch (IllegalArgumentException e) {
+                    results.add(BulkOrderService.BulkOrderResult.failure(index, e.getMessage()));
+                    continue;
+                }
+                itemSlots.add(results.size());
+                results.add(null);
+                items.add(new BulkOrderService.BulkOrderItem(items.size(), index, userId.longValue(), productIds, totalAmount));
+            }
+        }
+        
+        if (!items.isEmpty()) {
+            List<BulkOrderService.BulkOrderResult> processed;
+            try {
+                processed = bulkOrderService.createOrders(items);
+            } catch (RejectedExecutionException e) {
+                response.put("error", e.getMessage());
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+            }
+            for (int i = 0; i < processed.size(); i++) {
+                results.set(itemSlots.get(i), processed.get(i));
+            }
+        }
+        
+        long succeeded = results.stream().filter(BulkOrderService.BulkOrderResult::success).count();
+        response.put("total", results.size());
+        response.put("succeeded", succeeded);
+        response.put("failed", results.size() - succeeded);
+        response.put("results", results.stream().map(BulkOrderService.BulkOrderResult::toMap).toList());
+        response.put("elapsedMillis", System.currentTimeMillis() - start);
+        response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 更新订单状态，已归档的订单返回 409
      * PUT /api/orders/{orderId}/status
      */
     @PutMapping("/{orderId}/status")
     public ResponseEntity<?> updateOrderStatus(@PathVariable Long orderId, @RequestBody Map<String, String> statusUpdate) {
-        String newStatus = statusUpdate.get("status");
+        OrderStatus newStatus = OrderStatus.fromString(statusUpdate.get("status"));
+        if (newStatus == null) {
+            return ResponseEntity.badRequest().body("无效的订单状态: " + statusUpdate.get("status"));
+        }
         
-        // 模拟状态更新
-        return ResponseEntity.ok(Map.of(
-            "message", "订单状态更新成功",
-            "orderId", orderId,
-            "newStatus", newStatus,
-            "updatedAt", System.currentTimeMillis()
-        ));
+        return orderService.updateStatus(orderId, newStatus)
+            .<ResponseEntity<?>>map(transition -> ResponseEntity.ok(Map.of(
+                "message", "订单状态更新成功",
+                "orderId", orderId,
+                "previousStatus", transition.from(),
+                "newStatus", transition.to(),
+                "updatedAt", transition.order().getUpdatedAt()
+            )))
+            .orElseGet(() -> orderService.isArchived(orderId)
+                ? ResponseEntity.status(HttpStatus.CONFLICT).body("订单 " + orderId + " 已归档，不能修改状态")
+                : ResponseEntity.notFound().build());
     }
     
     /**
@@ -162,12 +380,14 @@ public class OrderController {
     @GetMapping("/stats")
     public ResponseEntity<Map<String, Object>> getOrderStats() {
         Map<String, Object> stats = new HashMap<>();
-        stats.put("totalOrders", MOCK_ORDERS.size());
-        stats.put("pendingOrders", MOCK_ORDERS.stream().filter(o -> "PENDING".equals(o.get("status"))).count());
-        stats.put("completedOrders", MOCK_ORDERS.stream().filter(o -> "COMPLETED".equals(o.get("status"))).count());
-        stats.put("totalRevenue", MOCK_ORDERS.stream()
-            .mapToDouble(o -> (Double) o.get("totalAmount"))
-            .sum());
+        stats.put("totalOrders", orderStatistics.getTotalOrders());
+        stats.put("pendingOrders", orderStatistics.getOrderCount(OrderStatus.PENDING));
+        stats.put("completedOrders", orderStatistics.getOrderCount(OrderStatus.COMPLETED));
+        stats.put("totalRevenue", orderStatistics.getTotalRevenue());
+        stats.put("ordersByStatus", orderStatistics.getOrdersByStatus());
+        stats.put("pendingConfirmationDeadlines", orderExpiryService.getPendingConfirmations());
+        stats.put("pendingExpiryDeadlines", orderExpiryService.getPendingExpirations());
+        stats.put("statusStreamSubscribers", orderStatusStreamHub.getSubscriberCount());
         
         return ResponseEntity.ok(stats);
     }
@@ -182,7 +402,7 @@ public class OrderController {
         health.put("status", "UP");
         health.put("service", "order-service");
         health.put("port", "8083");
-        health.put("ordersCount", MOCK_ORDERS.size());
+        health.put("ordersCount", orderService.countOrders());
         health.put("timestamp", System.currentTimeMillis());
         health.put("message", "Order Service 运行正常");
         
@@ -223,8 +443,11 @@ public class OrderController {
         Map<String, Object> result = new HashMap<>();
         
         try {
-            // 通过Feign客户端调用产品服务
-            Map<String, Object> productCheck = productServiceClient.checkProductExists(productId);
+            // 优先读取近端缓存，未命中时通过Feign客户端调用产品服务
+            boolean exists = productNearCache.checkProductExists(productId);
+            Map<String, Object> productCheck = new HashMap<>();
+            productCheck.put("exists", exists);
+            productCheck.put("message", exists ? "产品ID " + productId + " 存在" : "产品ID " + productId + " 不存在");
             
             result.put("orderService", "order-service:8083");
             result.put("productVerification", productCheck);
@@ -238,70 +461,102 @@ public class OrderController {
     }
     
     /**
-     * 处理订单支付 - 使用熔断器保护
+     * 批量验证产品存在性，所有产品并发校验
+     * GET /api/orders/verify-products?productIds=1,2,3
+     */
+    @GetMapping("/verify-products")
+    public ResponseEntity<Map<String, Object>> verifyProducts(@RequestParam List<Long> productIds) {
+        long start = System.currentTimeMillis();
+        ProductValidationService.ValidationResult validation = productValidationService.validateProducts(productIds);
+        
+        Map<String, Object> result = new HashMap<>();
+        result.put("orderService", "order-service:8083");
+        result.put("valid", validation.isValid());
+        result.put("validProductIds", validation.validIds());
+        result.put("missingProductIds", validation.missingIds());
+        result.put("unverifiedProductIds", validation.unverifiedIds());
+        result.put("timedOut", validation.timedOut());
+        result.put("elapsedMillis", System.currentTimeMillis() - start);
+        result.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(result);
+    }
+    
+    /**
+     * 获取产品近端缓存统计
+     * GET /api/orders/product-cache/stats
+     */
+    @GetMapping("/product-cache/stats")
+    public ResponseEntity<Map<String, Object>> getProductCacheStats() {
+        Map<String, Object> stats = productNearCache.getStats();
+        stats.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(stats);
+    }
+    
+    /**
+     * 获取冷订单归档统计
+     * GET /api/orders/archive/stats
+     */
+    @GetMapping("/archive/stats")
+    public ResponseEntity<Map<String, Object>> getArchiveStats() {
+        Map<String, Object> stats = orderArchive.getStats();
+        stats.put("ordersInMemory", orderService.countOrders());
+        stats.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(stats);
+    }
+    
+    /**
+     * 处理订单支付 - 异步调用支付服务，等待期间释放请求线程，熔断器保护见 OrderPaymentService
      * POST /api/orders/{orderId}/payment
      */
     @PostMapping("/{orderId}/payment")
-    @CircuitBreaker(name = "payment-service", fallbackMethod = "fallbackPayment")
-    @Retry(name = "payment-service")
-    public ResponseEntity<Map<String, Object>> processOrderPayment(
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> processOrderPayment(
             @PathVariable Long orderId,
             @RequestBody Map<String, Object> paymentRequest) {
         
-        logger.info("Processing payment for order: {}", orderId);
+        Order order = orderService.getOrder(orderId).orElse(null);
+        if (order == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        if (order.getTotal() == null) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("orderId", orderId);
+            error.put("error", "订单缺少金额，无法支付");
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(error));
+        }
         
-        try {
-            // 查找订单
-            Map<String, Object> order = MOCK_ORDERS.stream()
-                .filter(o -> orderId.equals(o.get("id")))
-                .findFirst()
-                .orElse(null);
-            
-            if (order == null) {
-                return ResponseEntity.notFound().build();
-            }
-            
-            // 准备支付请求
-            PaymentServiceClient.PaymentRequest paymentReq = new PaymentServiceClient.PaymentRequest(
-                orderId,
-                (Long) order.get("userId"),
-                BigDecimal.valueOf((Double) order.get("totalAmount")),
-                "USD"
-            );
-            
-            // 调用支付服务
-            ResponseEntity<Map<String, Object>> paymentResponse = paymentServiceClient.processPayment(paymentReq);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("orderId", orderId);
-            response.put("orderAmount", order.get("totalAmount"));
-            response.put("paymentResult", paymentResponse.getBody());
-            response.put("message", "订单支付处理完成");
-            response.put("timestamp", System.currentTimeMillis());
-            
-            return ResponseEntity.ok(response);
-            
-        } catch (Exception e) {
-            logger.error("Payment processing failed for order: {}", orderId, e);
-            throw e; // 让熔断器处理异常
+        // 已经转入支付 Saga 的订单由后台继续处理，不再重复发起支付
+        PaymentSaga saga = paymentSagaOrchestrator.getSaga(orderId)
+            .filter(s -> s.getState() != PaymentSagaState.FAILED)
+            .orElse(null);
+        if (saga != null) {
+            return CompletableFuture.completedFuture(ResponseEntity.accepted().body(toSagaInfo(saga)));
         }
+        
+        return orderPaymentService.processPayment(order)
+            .thenApply(ResponseEntity::ok);
     }
     
     /**
-     * 支付服务降级方法
+     * 查询订单支付 Saga 状态
+     * GET /api/orders/{orderId}/payment/saga
      */
-    public ResponseEntity<Map<String, Object>> fallbackPayment(Long orderId, Map<String, Object> paymentRequest, Exception ex) {
-        logger.warn("Payment service failed for order: {}, using fallback. Error: {}", orderId, ex.getMessage());
-        
-        Map<String, Object> fallbackResponse = new HashMap<>();
-        fallbackResponse.put("orderId", orderId);
-        fallbackResponse.put("status", "PAYMENT_PENDING");
-        fallbackResponse.put("message", "支付服务暂时不可用，订单已保存，稍后会自动重试支付");
-        fallbackResponse.put("fallback", true);
-        fallbackResponse.put("error", ex.getMessage());
-        fallbackResponse.put("timestamp", System.currentTimeMillis());
-        
-        return ResponseEntity.ok(fallbackResponse);
+    @GetMapping("/{orderId}/payment/saga")
+    public ResponseEntity<Map<String, Object>> getPaymentSaga(@PathVariable Long orderId) {
+        return paymentSagaOrchestrator.getSaga(orderId)
+            .map(saga -> ResponseEntity.ok(toSagaInfo(saga)))
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * 各状态的支付 Saga 数量
+     * GET /api/orders/payment-sagas/stats
+     */
+    @GetMapping("/payment-sagas/stats")
+    public ResponseEntity<Map<String, Object>> getPaymentSagaStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("sagasByState", paymentSagaOrchestrator.countByState());
+        stats.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.ok(stats);
     }
     
     /**
@@ -315,6 +570,7 @@ public class OrderController {
         // 支付服务熔断器状态
         io.github.resilience4j.circuitbreaker.CircuitBreaker paymentCB = circuitBreakerRegistry.circuitBreaker("payment-service");
         status.put("paymentService", getCircuitBreakerInfo(paymentCB));
+        status.put("paymentConcurrencyLimit", paymentConcurrencyLimiter.getStats());
         
         status.put("service", "order-service");
         status.put("timestamp", System.currentTimeMillis());
@@ -332,17 +588,53 @@ public class OrderController {
         return info;
     }
     
+    private static Map<String, Object> toSagaInfo(PaymentSaga saga) {
+        Map<String, Object> info = new HashMap<>();
+        info.put("orderId", saga.getOrderId());
+        info.put("state", saga.getState());
+        info.put("attempts", saga.getAttempts());
+        info.put("nextAttemptAt", saga.getNextAttemptAt());
+        info.put("lastError", saga.getLastError());
+        info.put("paymentId", saga.getPaymentId());
+        info.put("updatedAt", saga.getUpdatedAt());
+        return info;
+    }
+    
+    private static ResponseEntity<StreamingResponseBody> exportError(HttpStatus status, String message) {
+        return ResponseEntity.status(status)
+            .contentType(MediaType.TEXT_PLAIN)
+            .body(out -> out.write(message.getBytes(StandardCharsets.UTF_8)));
+    }
+    
     /**
-     * 创建模拟订单对象
+     * 产品校验失败的响应：产品不存在返回 400，产品服务超时或不可用返回 503
      */
-    private static Map<String, Object> createOrder(Long id, Long userId, List<Long> productIds, String status, Double totalAmount) {
-        Map<String, Object> order = new HashMap<>();
-        order.put("id", id);
-        order.put("userId", userId);
-        order.put("productIds", productIds);
-        order.put("status", status);
-        order.put("totalAmount", totalAmount);
-        order.put("createdAt", System.currentTimeMillis() - (id * 86400000)); // 模拟不同的创建时间
-        return order;
+    private static ResponseEntity<?> validationFailure(ProductValidationService.ValidationResult validation) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("missingProductIds", validation.missingIds());
+        error.put("unverifiedProductIds", validation.unverifiedIds());
+        if (!validation.missingIds().isEmpty()) {
+            error.put("error", "创建订单失败: 产品不存在 " + validation.missingIds());
+            return ResponseEntity.badRequest().body(error);
+        }
+        error.put("error", validation.timedOut()
+            ? "创建订单失败: 产品校验超时，请稍后重试"
+            : "创建订单失败: 产品服务暂时不可用，请稍后重试");
+        return ResponseEntity.status(503).body(error);
+    }
+    
+    /**
+     * 解析请求中的产品ID列表
+     */
+    private static List<Long> toProductIds(Object value) {
+        List<Long> productIds = new ArrayList<>();
+        if (value instanceof List<?> list) {
+            for (Object item : list) {
+                if (item instanceof Number number) {
+                    productIds.add(number.longValue());
+                }
+            }
+        }
+        return productIds;
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.shophub.order.feign;
 
+import com.shophub.common.money.Money;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -47,6 +48,10 @@ public interface PaymentServiceClient {
             this.amount = amount;
             this.currency = currency;
         }
+
+        public PaymentRequest(Long orderId, Long userId, Money amount) {
+            this(orderId, userId, amount.toBigDecimal(), amount.getCurrency());
+        }
         
         // Getters and Setters
         public Long getOrderId() { return orderId; }
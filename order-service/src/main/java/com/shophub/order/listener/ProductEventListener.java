@@ -0,0 +1,55 @@
+package com.shophub.order.listener;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shophub.order.service.ProductNearCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+
+/**
+ * 产品事件监听器
+ * 监听 product.events，产品发生变更时使订单服务中的产品近端缓存失效
+ */
+@Component
+public class ProductEventListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductEventListener.class);
+
+    @Autowired
+    private ProductNearCache productNearCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 监听产品事件
+     */
+    @Bean
+    public Consumer<Message<String>> productEvents() {
+        return message -> handleProductEvent(message.getPayload());
+    }
+
+    private void handleProductEvent(String eventData) {
+        try {
+            JsonNode eventNode = objectMapper.readTree(eventData);
+            JsonNode productId = eventNode.path("productId");
+
+            if (productId.canConvertToLong()) {
+                productNearCache.invalidate(productId.asLong());
+            } else {
+                // 无法确定具体产品时清空缓存，宁可多查一次也不返回过期数据
+                productNearCache.invalidateAll();
+            }
+            logger.debug("Processed product event {} for product {}", eventNode.path("eventType").asText(), productId);
+        } catch (Exception e) {
+            logger.error("Error processing product event: {}", eventData, e);
+            productNearCache.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.shophub.order.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.shophub.common.money.Money;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 订单
+ *
+ * 除状态外的字段创建后不再变化；状态只能通过 OrderStore 修改，以便同步维护状态索引。
+ */
+public class Order {
+
+    private final Long id;
+    private final Long userId;
+    private final List<Long> productIds;
+    private final Money totalAmount;
+    private final long createdAt;
+
+    private volatile OrderStatus status;
+    private volatile long updatedAt;
+
+    public Order(Long id, Long userId, List<Long> productIds, OrderStatus status, Money totalAmount, long createdAt) {
+        this(id, userId, productIds, status, totalAmount, createdAt, createdAt);
+    }
+
+    public Order(Long id, Long userId, List<Long> productIds, OrderStatus status, Money totalAmount,
+                 long createdAt, long updatedAt) {
+        this.id = id;
+        this.userId = userId;
+        this.productIds = productIds == null ? List.of() : List.copyOf(productIds);
+        this.status = status;
+        this.totalAmount = totalAmount;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    public Long getId() { return id; }
+
+    public Long getUserId() { return userId; }
+
+    public List<Long> getProductIds() { return productIds; }
+
+    public OrderStatus getStatus() { return status; }
+
+    /**
+     * 订单总金额，未给出金额时为 null
+     */
+    @JsonIgnore
+    public Money getTotal() { return totalAmount; }
+
+    /**
+     * JSON 中的金额，小数位数等于货币最小单位位数
+     */
+    public BigDecimal getTotalAmount() { return totalAmount != null ? totalAmount.toBigDecimal() : null; }
+
+    public String getCurrency() { return totalAmount != null ? totalAmount.getCurrency() : null; }
+
+    public long getCreatedAt() { return createdAt; }
+
+    public long getUpdatedAt() { return updatedAt; }
+
+    /**
+     * 仅供 OrderStore 在持有订单锁时调用
+     */
+    public void setStatus(OrderStatus status, long updatedAt) {
+        this.status = status;
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,7 @@
+package com.shophub.order.model;
+
+/**
+ * 订单创建事件（进程内 Spring 事件）
+ */
+public record OrderCreatedEvent(Order order) {
+}
@@ -0,0 +1,102 @@
+package com.shophub.order.model;
+
+import com.shophub.common.money.Money;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import org.springframework.data.domain.Persistable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 订单表中的一行
+ *
+ * OrderStore 的持久化形式，与发件箱、支付 Saga 在同一个 H2 数据库中，服务重启后据此重建内存索引。
+ * 金额按 [minorUnits, currency] 存储（无金额时 currency 为 null），产品ID以逗号分隔。
+ * 订单ID由 SnowflakeIdGenerator 分配，实现 Persistable 使 save 直接插入而不先查询。
+ */
+@Entity
+@Table(name = "orders")
+public class OrderRecord implements Persistable<Long> {
+
+    @Id
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "product_ids", nullable = false, length = 2000)
+    private String productIds;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private OrderStatus status;
+
+    @Column(name = "total_minor")
+    private Long totalMinorUnits;
+
+    @Column(name = "currency", length = 3)
+    private String currency;
+
+    @Column(name = "created_at", nullable = false)
+    private long createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private long updatedAt;
+
+    @Transient
+    private boolean isNew = true;
+
+    protected OrderRecord() {
+    }
+
+    public static OrderRecord of(Order order) {
+        OrderRecord record = new OrderRecord();
+        record.id = order.getId();
+        record.userId = order.getUserId();
+        record.productIds = order.getProductIds().stream().map(String::valueOf).collect(Collectors.joining(","));
+        record.status = order.getStatus();
+        Money total = order.getTotal();
+        record.totalMinorUnits = total != null ? total.getMinorUnits() : null;
+        record.currency = total != null ? total.getCurrency() : null;
+        record.createdAt = order.getCreatedAt();
+        record.updatedAt = order.getUpdatedAt();
+        return record;
+    }
+
+    public Order toOrder() {
+        List<Long> ids = new ArrayList<>();
+        for (String productId : productIds.split(",")) {
+            if (!productId.isEmpty()) {
+                ids.add(Long.valueOf(productId));
+            }
+        }
+        Money total = currency != null && totalMinorUnits != null ? Money.ofMinor(totalMinorUnits, currency) : null;
+        return new Order(id, userId, ids, status, total, createdAt, updatedAt);
+    }
+
+    @Override
+    public Long getId() {
+        return id;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+}
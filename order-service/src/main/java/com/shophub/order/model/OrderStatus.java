@@ -0,0 +1,30 @@
+package com.shophub.order.model;
+
+import java.util.Locale;
+
+/**
+ * 订单状态
+ */
+public enum OrderStatus {
+    PENDING,     // 待确认
+    CONFIRMED,   // 已确认
+    PROCESSING,  // 处理中
+    SHIPPED,     // 已发货
+    DELIVERED,   // 已送达
+    COMPLETED,   // 已完成
+    CANCELLED;   // 已取消
+
+    /**
+     * 忽略大小写解析状态，无法识别时返回 null
+     */
+    public static OrderStatus fromString(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return OrderStatus.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
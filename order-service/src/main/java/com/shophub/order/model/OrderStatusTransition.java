@@ -0,0 +1,7 @@
+package com.shophub.order.model;
+
+/**
+ * 一次订单状态变更，version 为变更后订单的 updatedAt
+ */
+public record OrderStatusTransition(Order order, OrderStatus from, OrderStatus to, long version) {
+}
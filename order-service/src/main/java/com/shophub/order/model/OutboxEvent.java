@@ -0,0 +1,65 @@
+package com.shophub.order.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * 订单事件发件箱记录
+ *
+ * 与订单变更在同一个事务中写入，由 OrderEventRelay 异步批量发布到 order.events，
+ * 收到 RabbitMQ 确认后删除。
+ */
+@Entity
+@Table(name = "order_outbox")
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "event_type", nullable = false, length = 64)
+    private String eventType;
+
+    @Column(name = "payload", nullable = false, length = 2000)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private long createdAt;
+
+    protected OutboxEvent() {
+    }
+
+    public OutboxEvent(Long orderId, String eventType, String payload) {
+        this.orderId = orderId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+}
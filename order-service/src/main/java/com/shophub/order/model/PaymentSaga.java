@@ -0,0 +1,170 @@
+package com.shophub.order.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.shophub.common.money.Money;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+
+import java.math.BigDecimal;
+
+/**
+ * 订单支付 Saga
+ *
+ * 每个订单一条记录，持久化支付流程的当前状态、已尝试次数和下一次尝试时间，
+ * 服务重启后从数据库恢复未完成的支付。@Version 防止并发推进同一个 Saga。
+ */
+@Entity
+@Table(name = "payment_saga", indexes = @Index(name = "idx_payment_saga_due", columnList = "state, next_attempt_at"))
+public class PaymentSaga {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Column(name = "currency", nullable = false, length = 3)
+    private String currency;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "state", nullable = false, length = 16)
+    private PaymentSagaState state;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private long nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "payment_id")
+    private String paymentId;
+
+    @Column(name = "created_at", nullable = false)
+    private long createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private long updatedAt;
+
+    @Version
+    private long version;
+
+    protected PaymentSaga() {
+    }
+
+    public PaymentSaga(Long orderId, Long userId, Money amount) {
+        this.orderId = orderId;
+        this.userId = userId;
+        this.amount = amount.toBigDecimal();
+        this.currency = amount.getCurrency();
+        this.state = PaymentSagaState.PENDING;
+        this.createdAt = System.currentTimeMillis();
+        this.updatedAt = createdAt;
+        this.nextAttemptAt = createdAt;
+    }
+
+    /**
+     * 发起一次支付尝试
+     */
+    public void startAttempt(long now) {
+        this.state = PaymentSagaState.PAYING;
+        this.attempts++;
+        this.updatedAt = now;
+    }
+
+    /**
+     * 本次尝试失败，在 nextAttemptAt 之后重试
+     */
+    public void retryAt(long nextAttemptAt, String error, long now) {
+        this.state = PaymentSagaState.PENDING;
+        this.nextAttemptAt = nextAttemptAt;
+        this.lastError = truncate(error);
+        this.updatedAt = now;
+    }
+
+    /**
+     * 本次尝试未发出（被本地限流或熔断拒绝），改期重试且不计入尝试次数
+     */
+    public void deferAttempt(long nextAttemptAt, String error, long now) {
+        this.attempts = Math.max(0, attempts - 1);
+        retryAt(nextAttemptAt, error, now);
+    }
+
+    public void markPaid(String paymentId, long now) {
+        this.state = PaymentSagaState.PAID;
+        this.paymentId = paymentId;
+        this.lastError = null;
+        this.updatedAt = now;
+    }
+
+    public void markFailed(String error, long now) {
+        this.state = PaymentSagaState.FAILED;
+        this.lastError = truncate(error);
+        this.updatedAt = now;
+    }
+
+    private static String truncate(String error) {
+        return error != null && error.length() > 500 ? error.substring(0, 500) : error;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    @JsonIgnore
+    public Money getTotal() {
+        return Money.of(amount, currency);
+    }
+
+    public PaymentSagaState getState() {
+        return state;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public long getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public String getPaymentId() {
+        return paymentId;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+}
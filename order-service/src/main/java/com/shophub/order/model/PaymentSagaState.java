@@ -0,0 +1,12 @@
+package com.shophub.order.model;
+
+/**
+ * 订单支付 Saga 状态
+ * PENDING -> PAYING -> PAID / FAILED，PAYING 调用失败后回到 PENDING 等待重试
+ */
+public enum PaymentSagaState {
+    PENDING,    // 等待发起支付（含退避等待下一次重试）
+    PAYING,     // 已向支付服务发起支付，等待结果
+    PAID,       // 支付成功
+    FAILED      // 重试次数耗尽，订单已取消
+}
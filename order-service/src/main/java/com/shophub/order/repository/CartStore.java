@@ -0,0 +1,41 @@
+package com.shophub.order.repository;
+
+import java.util.Map;
+
+/**
+ * 购物车存储
+ *
+ * 每个用户一个购物车：产品ID -> 数量。单个商品行的增减和删除都是 O(1)，
+ * 不需要读出整个购物车。数量小于等于 0 的行会被删除。
+ */
+public interface CartStore {
+
+    /**
+     * 读取购物车全部商品行，购物车不存在时返回空 Map
+     */
+    Map<Long, Integer> getItems(Long userId);
+
+    /**
+     * 按增量调整商品数量，结果超过 maxQuantity 时取 maxQuantity，返回调整后的数量（0 表示该行已删除）
+     */
+    int addItem(Long userId, Long productId, int delta, int maxQuantity);
+
+    /**
+     * 把商品数量设置为 quantity，quantity 小于等于 0 时删除该行
+     */
+    void setItem(Long userId, Long productId, int quantity);
+
+    void removeItem(Long userId, Long productId);
+
+    void clear(Long userId);
+
+    /**
+     * 原子地取出并清空购物车，同一购物车不会被两次下单
+     */
+    Map<Long, Integer> takeAll(Long userId);
+
+    /**
+     * 下单失败时把取出的商品行加回购物车（与期间新加入的商品合并）
+     */
+    void restore(Long userId, Map<Long, Integer> items);
+}
@@ -0,0 +1,78 @@
+package com.shophub.order.repository;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 进程内购物车存储，语义与 RedisCartStore 相同
+ *
+ * 默认的购物车存储（order.cart.store=memory 或未配置），不跨实例共享，重启后丢失；
+ * 多实例部署时配置 order.cart.store=redis。
+ */
+@Repository
+@ConditionalOnProperty(name = "order.cart.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryCartStore implements CartStore {
+
+    private final Map<Long, Map<Long, Integer>> carts = new ConcurrentHashMap<>();
+
+    @Override
+    public Map<Long, Integer> getItems(Long userId) {
+        Map<Long, Integer> cart = carts.get(userId);
+        return cart == null ? new HashMap<>() : new HashMap<>(cart);
+    }
+
+    @Override
+    public int addItem(Long userId, Long productId, int delta, int maxQuantity) {
+        int[] result = {0};
+        carts.compute(userId, (id, cart) -> {
+            Map<Long, Integer> items = cart != null ? cart : new ConcurrentHashMap<>();
+            Integer quantity = items.merge(productId, delta, Integer::sum);
+            if (quantity <= 0) {
+                items.remove(productId);
+            } else {
+                result[0] = Math.min(quantity, maxQuantity);
+                items.put(productId, result[0]);
+            }
+            return items.isEmpty() ? null : items;
+        });
+        return result[0];
+    }
+
+    @Override
+    public void setItem(Long userId, Long productId, int quantity) {
+        carts.compute(userId, (id, cart) -> {
+            Map<Long, Integer> items = cart != null ? cart : new ConcurrentHashMap<>();
+            if (quantity <= 0) {
+                items.remove(productId);
+            } else {
+                items.put(productId, quantity);
+            }
+            return items.isEmpty() ? null : items;
+        });
+    }
+
+    @Override
+    public void removeItem(Long userId, Long productId) {
+        setItem(userId, productId, 0);
+    }
+
+    @Override
+    public void clear(Long userId) {
+        carts.remove(userId);
+    }
+
+    @Override
+    public Map<Long, Integer> takeAll(Long userId) {
+        Map<Long, Integer> cart = carts.remove(userId);
+        return cart == null ? new HashMap<>() : new HashMap<>(cart);
+    }
+
+    @Override
+    public void restore(Long userId, Map<Long, Integer> items) {
+        items.forEach((productId, quantity) -> addItem(userId, productId, quantity, Integer.MAX_VALUE));
+    }
+}
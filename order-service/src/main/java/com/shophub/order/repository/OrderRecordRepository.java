@@ -0,0 +1,25 @@
+package com.shophub.order.repository;
+
+import com.shophub.order.model.OrderRecord;
+import com.shophub.order.model.OrderStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 订单表数据访问接口，只由 OrderStore 使用
+ */
+@Repository
+public interface OrderRecordRepository extends JpaRepository<OrderRecord, Long> {
+
+    /**
+     * 写入状态变更，updatedAt 即订单版本号
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE OrderRecord o SET o.status = :status, o.updatedAt = :updatedAt WHERE o.id = :id")
+    int updateStatus(@Param("id") Long id, @Param("status") OrderStatus status, @Param("updatedAt") long updatedAt);
+}
@@ -0,0 +1,325 @@
+package com.shophub.order.repository;
+
+import com.shophub.order.model.Order;
+import com.shophub.order.model.OrderRecord;
+import com.shophub.order.model.OrderStatus;
+import com.shophub.order.model.OrderStatusTransition;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 订单存储
+ *
+ * 主索引：订单ID -> 订单
+ * 二级索引：用户ID -> 订单ID集合、状态 -> 订单ID集合（按订单ID有序）
+ * 时间索引：按创建时间的小时分桶，桶内按 (创建时间, 订单ID) 有序
+ * 按用户和状态查询直接命中索引，不需要扫描全部订单；时间范围查询只访问范围内的桶。
+ * 状态变更在订单对象上加锁，保证状态字段与状态索引同步移动；每次变更的 updatedAt 严格递增，可作为订单版本号。
+ *
+ * 订单表（OrderRecordRepository，H2）是持久化的主表，内存中的主索引和各级索引在启动时从订单表重建。
+ * 新订单和状态变更先在订单锁内写订单表（加入调用方的事务），写入成功后再修改内存；
+ * 调用方事务回滚时订单表随之回滚，内存中的修改由调用方用 discardIfUnchanged / revertStatus 撤销。
+ */
+@Repository
+public class OrderStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStore.class);
+
+    @Autowired
+    private OrderRecordRepository orderRecordRepository;
+
+    private final Map<Long, Order> ordersById = new ConcurrentHashMap<>();
+    private final Map<Long, NavigableSet<Long>> orderIdsByUser = new ConcurrentHashMap<>();
+    private final Map<OrderStatus, NavigableSet<Long>> orderIdsByStatus = new EnumMap<>(OrderStatus.class);
+    private final NavigableMap<Long, NavigableSet<TimeIndexEntry>> ordersByHour = new ConcurrentSkipListMap<>();
+
+    private static final long BUCKET_MILLIS = 60 * 60 * 1000L;
+
+    public OrderStore() {
+        for (OrderStatus status : OrderStatus.values()) {
+            orderIdsByStatus.put(status, new ConcurrentSkipListSet<>());
+        }
+    }
+
+    /**
+     * 启动时从订单表重建内存索引
+     */
+    @PostConstruct
+    public void load() {
+        for (OrderRecord record : orderRecordRepository.findAll()) {
+            Order order = record.toOrder();
+            ordersById.put(order.getId(), order);
+            index(order);
+        }
+        logger.info("Loaded {} orders from the order table", ordersById.size());
+    }
+
+    /**
+     * 保存新订单：写入订单表并建立索引
+     */
+    public Order save(Order order) {
+        if (ordersById.putIfAbsent(order.getId(), order) != null) {
+            throw new IllegalStateException("订单ID已存在: " + order.getId());
+        }
+        try {
+            orderRecordRepository.save(OrderRecord.of(order));
+        } catch (RuntimeException e) {
+            ordersById.remove(order.getId(), order);
+            throw e;
+        }
+        index(order);
+        return order;
+    }
+
+    /**
+     * 批量保存新订单，整批一次写入订单表（在调用方事务提交时按 JDBC 批量插入）
+     */
+    public List<Order> saveAll(List<Order> orders) {
+        List<Order> added = new ArrayList<>(orders.size());
+        try {
+            for (Order order : orders) {
+                if (ordersById.putIfAbsent(order.getId(), order) != null) {
+                    throw new IllegalStateException("订单ID已存在: " + order.getId());
+                }
+                added.add(order);
+            }
+            orderRecordRepository.saveAll(orders.stream().map(OrderRecord::of).toList());
+        } catch (RuntimeException e) {
+            added.forEach(order -> ordersById.remove(order.getId(), order));
+            throw e;
+        }
+        orders.forEach(this::index);
+        return orders;
+    }
+
+    /**
+     * 更新订单状态并移动状态索引，订单不存在时返回空
+     */
+    public Optional<OrderStatusTransition> updateStatus(Long orderId, OrderStatus newStatus) {
+        return updateStatus(orderId, null, newStatus);
+    }
+
+    /**
+     * 仅当订单当前状态为 expectedStatus 时更新状态（expectedStatus 为 null 表示不检查），
+     * 订单不存在或状态不符时返回空
+     */
+    public Optional<OrderStatusTransition> updateStatus(Long orderId, OrderStatus expectedStatus, OrderStatus newStatus) {
+        Order order = ordersById.get(orderId);
+        if (order == null) {
+            return Optional.empty();
+        }
+        synchronized (order) {
+            OrderStatus oldStatus = order.getStatus();
+            if (expectedStatus != null && oldStatus != expectedStatus) {
+                return Optional.empty();
+            }
+            if (oldStatus != newStatus) {
+                long version = nextVersion(order);
+                orderRecordRepository.updateStatus(orderId, newStatus, version);
+                orderIdsByStatus.get(newStatus).add(orderId);
+                order.setStatus(newStatus, version);
+                orderIdsByStatus.get(oldStatus).remove(orderId);
+            }
+            return Optional.of(new OrderStatusTransition(order, oldStatus, newStatus, order.getUpdatedAt()));
+        }
+    }
+
+    /**
+     * 撤销一次状态变更：仅当订单仍处于该变更写入的状态和版本时恢复为变更前的状态，返回是否撤销；
+     * 之后已有新的状态变更时保留新状态。
+     * 只在写入该变更的事务回滚后调用，订单表已随事务回滚，这里只恢复内存
+     */
+    public boolean revertStatus(OrderStatusTransition transition) {
+        Order order = ordersById.get(transition.order().getId());
+        if (order == null) {
+            return false;
+        }
+        synchronized (order) {
+            if (order.getStatus() != transition.to() || order.getUpdatedAt() != transition.version()) {
+                return false;
+            }
+            orderIdsByStatus.get(transition.from()).add(order.getId());
+            order.setStatus(transition.from(), nextVersion(order));
+            orderIdsByStatus.get(transition.to()).remove(order.getId());
+            return true;
+        }
+    }
+
+    /**
+     * 在订单锁内复制订单，保证状态和更新时间一致
+     */
+    public Optional<Order> snapshot(Long orderId) {
+        Order order = ordersById.get(orderId);
+        if (order == null) {
+            return Optional.empty();
+        }
+        synchronized (order) {
+            return Optional.of(new Order(order.getId(), order.getUserId(), order.getProductIds(), order.getStatus(),
+                order.getTotal(), order.getCreatedAt(), order.getUpdatedAt()));
+        }
+    }
+
+    /**
+     * 订单自 snapshot 之后没有变化时从订单表和所有索引中移除（归档后调用），返回是否移除
+     */
+    public boolean removeIfUnchanged(Order snapshot) {
+        return remove(snapshot, true);
+    }
+
+    /**
+     * 创建订单的事务回滚后调用：订单表中的行已随事务回滚，只从内存中移除
+     */
+    public boolean discardIfUnchanged(Order snapshot) {
+        return remove(snapshot, false);
+    }
+
+    private boolean remove(Order snapshot, boolean deleteRecord) {
+        Order order = ordersById.get(snapshot.getId());
+        if (order == null) {
+            return false;
+        }
+        synchronized (order) {
+            if (order.getStatus() != snapshot.getStatus() || order.getUpdatedAt() != snapshot.getUpdatedAt()) {
+                return false;
+            }
+            if (deleteRecord) {
+                orderRecordRepository.deleteById(order.getId());
+            }
+            ordersById.remove(order.getId(), order);
+            NavigableSet<Long> userOrderIds = orderIdsByUser.get(order.getUserId());
+            if (userOrderIds != null) {
+                userOrderIds.remove(order.getId());
+            }
+            orderIdsByStatus.get(order.getStatus()).remove(order.getId());
+            NavigableSet<TimeIndexEntry> bucket = ordersByHour.get(bucketOf(order.getCreatedAt()));
+            if (bucket != null) {
+                bucket.remove(new TimeIndexEntry(order.getCreatedAt(), order.getId()));
+            }
+            return true;
+        }
+    }
+
+    public Optional<Order> findById(Long orderId) {
+        return Optional.ofNullable(ordersById.get(orderId));
+    }
+
+    public List<Order> findByUserId(Long userId) {
+        NavigableSet<Long> orderIds = orderIdsByUser.get(userId);
+        return orderIds == null ? List.of() : resolve(orderIds, null);
+    }
+
+    public List<Order> findByStatus(OrderStatus status) {
+        return resolve(orderIdsByStatus.get(status), status);
+    }
+
+    /**
+     * 查询创建时间在 [from, to) 内的订单，按创建时间升序，最多返回 limit 条
+     */
+    public List<Order> findByCreatedAtBetween(long from, long to, int limit) {
+        return streamByCreatedAtBetween(from, to).limit(limit).collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * 按创建时间升序惰性遍历 [from, to) 内的订单，逐桶读取，不复制结果集
+     */
+    public Stream<Order> streamByCreatedAtBetween(long from, long to) {
+        if (from >= to) {
+            return Stream.empty();
+        }
+        TimeIndexEntry lower = new TimeIndexEntry(from, Long.MIN_VALUE);
+        TimeIndexEntry upper = new TimeIndexEntry(to, Long.MIN_VALUE);
+        // 只有首尾两个桶需要按边界截取，中间的桶整桶有效
+        return ordersByHour.subMap(bucketOf(from), true, bucketOf(to), true).values().stream()
+            .flatMap(bucket -> bucket.subSet(lower, true, upper, false).stream())
+            .map(entry -> ordersById.get(entry.orderId()))
+            .filter(Objects::nonNull);
+    }
+
+    /**
+     * 按订单ID升序惰性遍历用户的订单
+     */
+    public Stream<Order> streamByUserId(Long userId) {
+        NavigableSet<Long> orderIds = orderIdsByUser.get(userId);
+        if (orderIds == null) {
+            return Stream.empty();
+        }
+        return orderIds.stream()
+            .map(ordersById::get)
+            .filter(Objects::nonNull);
+    }
+
+    public List<Order> findAll() {
+        List<Order> orders = new ArrayList<>(ordersById.values());
+        orders.sort((o1, o2) -> Long.compare(o1.getId(), o2.getId()));
+        return orders;
+    }
+
+    public int count() {
+        return ordersById.size();
+    }
+
+    private void index(Order order) {
+        synchronized (order) {
+            orderIdsByUser.computeIfAbsent(order.getUserId(), id -> new ConcurrentSkipListSet<>()).add(order.getId());
+            orderIdsByStatus.get(order.getStatus()).add(order.getId());
+        }
+        ordersByHour.computeIfAbsent(bucketOf(order.getCreatedAt()), hour -> new ConcurrentSkipListSet<>())
+            .add(new TimeIndexEntry(order.getCreatedAt(), order.getId()));
+    }
+
+    /**
+     * 状态变更后的 updatedAt，同一毫秒内多次变更时也保证递增
+     */
+    private static long nextVersion(Order order) {
+        return Math.max(System.currentTimeMillis(), order.getUpdatedAt() + 1);
+    }
+
+    private static long bucketOf(long timestamp) {
+        return Math.floorDiv(timestamp, BUCKET_MILLIS);
+    }
+
+    /**
+     * 时间索引条目，先按创建时间再按订单ID排序
+     */
+    private record TimeIndexEntry(long createdAt, long orderId) implements Comparable<TimeIndexEntry> {
+
+        @Override
+        public int compareTo(TimeIndexEntry other) {
+            int byTime = Long.compare(createdAt, other.createdAt);
+            return byTime != 0 ? byTime : Long.compare(orderId, other.orderId);
+        }
+    }
+
+    /**
+     * 把索引中的订单ID解析为订单
+     * 状态索引在变更瞬间可能同时出现在新旧两个集合中，按当前状态再过滤一次
+     */
+    private List<Order> resolve(Collection<Long> orderIds, OrderStatus expectedStatus) {
+        List<Order> orders = new ArrayList<>(orderIds.size());
+        for (Long orderId : orderIds) {
+            Order order = ordersById.get(orderId);
+            if (order != null && (expectedStatus == null || order.getStatus() == expectedStatus)) {
+                orders.add(order);
+            }
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,34 @@
+package com.shophub.order.repository;
+
+import com.shophub.order.model.PaymentSaga;
+import com.shophub.order.model.PaymentSagaState;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 订单支付 Saga 数据访问接口
+ */
+@Repository
+public interface PaymentSagaRepository extends JpaRepository<PaymentSaga, Long> {
+
+    /**
+     * 到期需要发起支付的 Saga
+     */
+    @Query("SELECT s FROM PaymentSaga s WHERE s.state = com.shophub.order.model.PaymentSagaState.PENDING " +
+           "AND s.nextAttemptAt <= :now ORDER BY s.nextAttemptAt")
+    List<PaymentSaga> findDue(@Param("now") long now, Pageable pageable);
+
+    /**
+     * 长时间停留在 PAYING 的 Saga（服务在等待支付结果时重启）
+     */
+    @Query("SELECT s FROM PaymentSaga s WHERE s.state = com.shophub.order.model.PaymentSagaState.PAYING " +
+           "AND s.updatedAt < :staleBefore")
+    List<PaymentSaga> findStalePaying(@Param("staleBefore") long staleBefore);
+
+    long countByState(PaymentSagaState state);
+}
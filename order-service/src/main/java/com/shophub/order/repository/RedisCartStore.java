@@ -0,0 +1,118 @@
+package com.shophub.order.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于 Redis 哈希的购物车存储
+ *
+ * 每个用户一个哈希 {key-prefix}{userId}，字段为产品ID，值为数量，
+ * 商品行增减在一个 Lua 脚本中完成 HINCRBY、数量上限截断和刷新过期时间，一次往返且不会被并发写入打断；
+ * 每次写入刷新过期时间，长期不动的购物车自动清除。
+ * 需要显式配置 order.cart.store=redis（Redis 由 message-queue-stack 提供），默认使用 InMemoryCartStore。
+ */
+@Repository
+@ConditionalOnProperty(name = "order.cart.store", havingValue = "redis")
+public class RedisCartStore implements CartStore {
+
+    /** 读出并删除整个哈希，保证同一购物车只会被下单一次 */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> TAKE_ALL = new DefaultRedisScript<>(
+        "local items = redis.call('HGETALL', KEYS[1]) redis.call('DEL', KEYS[1]) return items", List.class);
+
+    /** 增减数量：小于等于 0 时删除该行，超过上限时截断为上限，然后刷新过期时间 */
+    private static final RedisScript<Long> ADD_ITEM = new DefaultRedisScript<>(
+        "local quantity = redis.call('HINCRBY', KEYS[1], ARGV[1], ARGV[2]) "
+            + "if quantity <= 0 then redis.call('HDEL', KEYS[1], ARGV[1]) return 0 end "
+            + "local max = tonumber(ARGV[3]) "
+            + "if quantity > max then redis.call('HSET', KEYS[1], ARGV[1], max) quantity = max end "
+            + "redis.call('PEXPIRE', KEYS[1], ARGV[4]) "
+            + "return quantity", Long.class);
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Value("${order.cart.key-prefix:shophub:cart:}")
+    private String keyPrefix;
+
+    @Value("${order.cart.ttl:30d}")
+    private Duration ttl;
+
+    @Override
+    public Map<Long, Integer> getItems(Long userId) {
+        return toItems(hashOps().entries(key(userId)));
+    }
+
+    @Override
+    public int addItem(Long userId, Long productId, int delta, int maxQuantity) {
+        Long quantity = redisTemplate.execute(ADD_ITEM, List.of(key(userId)), productId.toString(),
+            Integer.toString(delta), Integer.toString(maxQuantity), Long.toString(ttl.toMillis()));
+        return quantity != null ? quantity.intValue() : 0;
+    }
+
+    @Override
+    public void setItem(Long userId, Long productId, int quantity) {
+        if (quantity <= 0) {
+            removeItem(userId, productId);
+            return;
+        }
+        String key = key(userId);
+        hashOps().put(key, productId.toString(), Integer.toString(quantity));
+        redisTemplate.expire(key, ttl);
+    }
+
+    @Override
+    public void removeItem(Long userId, Long productId) {
+        hashOps().delete(key(userId), productId.toString());
+    }
+
+    @Override
+    public void clear(Long userId) {
+        redisTemplate.delete(key(userId));
+    }
+
+    @Override
+    public Map<Long, Integer> takeAll(Long userId) {
+        List<?> flat = redisTemplate.execute(TAKE_ALL, List.of(key(userId)));
+        Map<Long, Integer> items = new HashMap<>();
+        if (flat != null) {
+            for (int i = 0; i + 1 < flat.size(); i += 2) {
+                items.put(Long.valueOf(flat.get(i).toString()), Integer.valueOf(flat.get(i + 1).toString()));
+            }
+        }
+        return items;
+    }
+
+    @Override
+    public void restore(Long userId, Map<Long, Integer> items) {
+        for (Map.Entry<Long, Integer> item : items.entrySet()) {
+            hashOps().increment(key(userId), item.getKey().toString(), item.getValue());
+        }
+        redisTemplate.expire(key(userId), ttl);
+    }
+
+    private HashOperations<String, String, String> hashOps() {
+        return redisTemplate.opsForHash();
+    }
+
+    private String key(Long userId) {
+        return keyPrefix + userId;
+    }
+
+    private static Map<Long, Integer> toItems(Map<String, String> entries) {
+        Map<Long, Integer> items = new HashMap<>(entries.size());
+        entries.forEach((productId, quantity) -> items.put(Long.valueOf(productId), Integer.valueOf(quantity)));
+        return items;
+    }
+}
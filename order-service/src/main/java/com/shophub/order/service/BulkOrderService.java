@@ -0,0 +1,294 @@
+package com.shophub.order.service;
+
+import com.shophub.common.money.Money;
+import com.shophub.order.model.Order;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 批量下单服务
+ *
+ * 订单按 chunk 切分后依次流过三个阶段：产品校验 -> 定价 -> 持久化。
+ * 每个阶段使用单线程执行器，第 N 个 chunk 持久化时第 N+1 个 chunk 已在定价、第 N+2 个在校验，
+ * 各阶段以流水线方式并行；同一批次内已校验过的产品不会重复校验。
+ * 所有请求共享各阶段的线程，排队中的 chunk 总数不超过 maxQueuedChunks，超过时整个请求立即被拒绝，
+ * 单个大批量请求不会让其他请求无限排队。
+ * 等待超时后批次被标记为取消：尚未开始的阶段直接跳过，尚未持久化的订单不再保存，
+ * 返回给调用方的结果与实际保存的订单一致，调用方重试不会产生重复订单。
+ */
+@Service
+public class BulkOrderService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkOrderService.class);
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductValidationService productValidationService;
+
+    @Autowired
+    private PricingService pricingService;
+
+    @Value("${order.bulk.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${order.bulk.timeout:60s}")
+    private Duration timeout;
+
+    @Value("${order.bulk.max-queued-chunks:50}")
+    private int maxQueuedChunks;
+
+    private Semaphore queuedChunks;
+    private ThreadPoolExecutor validationStage;
+    private ThreadPoolExecutor pricingStage;
+    private ThreadPoolExecutor persistenceStage;
+
+    /**
+     * 每个阶段单线程、有界队列；chunk 进入流水线前先占用 queuedChunks 名额，各队列因此不会溢出
+     */
+    @PostConstruct
+    public void init() {
+        queuedChunks = new Semaphore(maxQueuedChunks);
+        validationStage = stage("bulk-order-validate");
+        pricingStage = stage("bulk-order-pricing");
+        persistenceStage = stage("bulk-order-persist");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        validationStage.shutdownNow();
+        pricingStage.shutdownNow();
+        persistenceStage.shutdownNow();
+    }
+
+    /**
+     * 批量创建订单，返回与请求顺序一致的逐单结果
+     *
+     * @throws RejectedExecutionException 流水线中排队的 chunk 已满
+     */
+    public List<BulkOrderResult> createOrders(List<BulkOrderItem> items) {
+        int chunks = (items.size() + chunkSize - 1) / chunkSize;
+        if (!queuedChunks.tryAcquire(chunks)) {
+            throw new RejectedExecutionException("批量下单队列已满，请稍后重试");
+        }
+        Batch batch = new Batch(items.size());
+
+        List<CompletableFuture<Void>> pipelines = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            List<BulkOrderItem> chunk = items.subList(from, Math.min(from + chunkSize, items.size()));
+            CompletableFuture<Void> pipeline = CompletableFuture
+                .supplyAsync(() -> validate(chunk, batch), validationStage)
+                .thenApplyAsync(valid -> price(valid, batch), pricingStage)
+                .thenAcceptAsync(priced -> persist(priced, batch), persistenceStage);
+            pipeline.whenComplete((ignored, error) -> queuedChunks.release());
+            pipelines.add(pipeline);
+        }
+
+        try {
+            CompletableFuture.allOf(pipelines.toArray(new CompletableFuture<?>[0]))
+                .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("Bulk order pipeline did not finish cleanly: {}", e.getMessage());
+        }
+
+        // 与持久化阶段互斥：取消之后不会再保存订单，之前保存的订单都已记录在结果中
+        synchronized (batch) {
+            batch.cancelled = true;
+        }
+        List<BulkOrderResult> ordered = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            BulkOrderResult result = batch.results.get(i);
+            ordered.add(result != null ? result
+                : BulkOrderResult.failure(items.get(i).index(), "批量下单超时，订单未创建"));
+        }
+        return ordered;
+    }
+
+    /**
+     * 阶段一：批量校验 chunk 中所有未校验过的产品
+     */
+    private List<BulkOrderItem> validate(List<BulkOrderItem> chunk, Batch batch) {
+        if (batch.cancelled) {
+            return List.of();
+        }
+        Map<Long, ProductCheck> productChecks = batch.productChecks;
+        Set<Long> unchecked = new LinkedHashSet<>();
+        for (BulkOrderItem item : chunk) {
+            for (Long productId : item.productIds()) {
+                if (!productChecks.containsKey(productId)) {
+                    unchecked.add(productId);
+                }
+            }
+        }
+        if (!unchecked.isEmpty()) {
+            ProductValidationService.ValidationResult validation = productValidationService.validateProducts(unchecked);
+            validation.validIds().forEach(id -> productChecks.put(id, ProductCheck.VALID));
+            validation.missingIds().forEach(id -> productChecks.put(id, ProductCheck.MISSING));
+            // 未能校验的产品不记入批次缓存，后续 chunk 会再尝试一次
+            validation.unverifiedIds().forEach(id -> productChecks.putIfAbsent(id, ProductCheck.UNVERIFIED));
+        }
+
+        List<BulkOrderItem> valid = new ArrayList<>(chunk.size());
+        for (BulkOrderItem item : chunk) {
+            List<Long> missing = new ArrayList<>();
+            boolean unverified = false;
+            for (Long productId : item.productIds()) {
+                ProductCheck check = productChecks.get(productId);
+                if (check == ProductCheck.MISSING) {
+                    missing.add(productId);
+                } else if (check != ProductCheck.VALID) {
+                    unverified = true;
+                }
+            }
+            if (!missing.isEmpty()) {
+                batch.results.set(item.position(), BulkOrderResult.failure(item.index(), "产品不存在 " + missing));
+            } else if (unverified) {
+                batch.results.set(item.position(), BulkOrderResult.failure(item.index(), "产品服务暂时不可用，无法校验产品"));
+            } else {
+                valid.add(item);
+            }
+        }
+        productChecks.values().removeIf(check -> check == ProductCheck.UNVERIFIED);
+        return valid;
+    }
+
+    /**
+     * 阶段二：未给出总金额的订单按产品价格定价
+     */
+    private List<BulkOrderItem> price(List<BulkOrderItem> items, Batch batch) {
+        if (batch.cancelled) {
+            return List.of();
+        }
+        List<BulkOrderItem> priced = new ArrayList<>(items.size());
+        for (BulkOrderItem item : items) {
+            if (item.totalAmount() != null) {
+                priced.add(item);
+                continue;
+            }
+            try {
+                priced.add(item.withTotalAmount(pricingService.priceOf(item.productIds())));
+            } catch (Exception e) {
+                batch.results.set(item.position(), BulkOrderResult.failure(item.index(), "定价失败: " + e.getMessage()));
+            }
+        }
+        return priced;
+    }
+
+    /**
+     * 阶段三：持久化订单；整个 chunk 在批次锁内检查取消标记后用一个事务保存（OrderService.createOrders），
+     * 保存失败时整个 chunk 的订单都标记为失败，与实际未保存的结果一致
+     */
+    private void persist(List<BulkOrderItem> items, Batch batch) {
+        if (items.isEmpty()) {
+            return;
+        }
+        synchronized (batch) {
+            if (batch.cancelled) {
+                return;
+            }
+            try {
+                List<Order> orders = orderService.createOrders(items);
+                for (int i = 0; i < items.size(); i++) {
+                    BulkOrderItem item = items.get(i);
+                    batch.results.set(item.position(), BulkOrderResult.success(item.index(), orders.get(i)));
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to persist a chunk of {} bulk orders", items.size(), e);
+                for (BulkOrderItem item : items) {
+                    batch.results.set(item.position(), BulkOrderResult.failure(item.index(), "保存订单失败: " + e.getMessage()));
+                }
+            }
+        }
+    }
+
+    private ThreadPoolExecutor stage(String name) {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, maxQueuedChunks)),
+            runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    private enum ProductCheck { VALID, MISSING, UNVERIFIED }
+
+    /**
+     * 一次批量请求的状态：逐单结果、批次内共享的产品校验结果（避免后续 chunk 重复校验同一产品）和取消标记
+     */
+    private static final class Batch {
+
+        private final AtomicReferenceArray<BulkOrderResult> results;
+        private final Map<Long, ProductCheck> productChecks = new ConcurrentHashMap<>();
+        private volatile boolean cancelled;
+
+        private Batch(int size) {
+            this.results = new AtomicReferenceArray<>(size);
+        }
+    }
+
+    /**
+     * 批量请求中的一个订单
+     *
+     * @param position 在待处理列表中的位置
+     * @param index    在原始请求中的序号
+     */
+    public record BulkOrderItem(int position, int index, Long userId, List<Long> productIds, Money totalAmount) {
+
+        BulkOrderItem withTotalAmount(Money amount) {
+            return new BulkOrderItem(position, index, userId, productIds, amount);
+        }
+    }
+
+    /**
+     * 单个订单的处理结果
+     */
+    public record BulkOrderResult(int index, boolean success, Long orderId, Money totalAmount, String error) {
+
+        public static BulkOrderResult success(int index, Order order) {
+            return new BulkOrderResult(index, true, order.getId(), order.getTotal(), null);
+        }
+
+        public static BulkOrderResult failure(int index, String error) {
+            return new BulkOrderResult(index, false, null, null, error);
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("index", index);
+            map.put("success", success);
+            if (success) {
+                map.put("orderId", orderId);
+                map.put("totalAmount", totalAmount != null ? totalAmount.toBigDecimal() : null);
+                map.put("currency", totalAmount != null ? totalAmount.getCurrency() : null);
+            } else {
+                map.put("error", error);
+            }
+            return map;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.shophub.order.service;
+
+import com.shophub.common.money.Money;
+import com.shophub.order.model.Order;
+import com.shophub.order.repository.CartStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 购物车服务（快速下单）
+ *
+ * 商品在加入购物车时校验存在性，之后购物车只保存已校验的产品ID和数量；
+ * 下单时一次调用即可把购物车原子地转换为订单，不需要客户端重新提交和重新校验整个购物车。
+ * 下单失败时商品行会加回购物车。
+ */
+@Service
+public class CartService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartService.class);
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductNearCache productNearCache;
+
+    @Autowired
+    private PricingService pricingService;
+
+    @Value("${order.processing.max-items-per-order:50}")
+    private int maxItemsPerOrder;
+
+    @Value("${order.cart.max-quantity-per-item:99}")
+    private int maxQuantityPerItem;
+
+    /**
+     * 下单结果：成功时 order 不为空，失败时 error 为原因；
+     * unavailable 表示失败原因是依赖的服务或存储不可用（可稍后重试），而不是购物车内容有误
+     */
+    public record CheckoutResult(Order order, String error, boolean unavailable) {
+
+        static CheckoutResult success(Order order) {
+            return new CheckoutResult(order, null, false);
+        }
+
+        static CheckoutResult failure(String error) {
+            return new CheckoutResult(null, error, false);
+        }
+
+        static CheckoutResult unavailable(String error) {
+            return new CheckoutResult(null, error, true);
+        }
+
+        public boolean isSuccess() {
+            return order != null;
+        }
+    }
+
+    /**
+     * 读取购物车，按产品ID排序
+     */
+    public Map<Long, Integer> getCart(Long userId) {
+        return new TreeMap<>(cartStore.getItems(userId));
+    }
+
+    /**
+     * 增加商品数量（quantity 可为负数表示减少），数量不超过 max-quantity-per-item，返回调整后的数量
+     */
+    public int addItem(Long userId, Long productId, int quantity) {
+        if (quantity > 0 && !productNearCache.checkProductExists(productId)) {
+            throw new IllegalArgumentException("产品不存在: " + productId);
+        }
+        return cartStore.addItem(userId, productId, quantity, maxQuantityPerItem);
+    }
+
+    /**
+     * 设置商品数量，quantity 为 0 时删除该商品
+     */
+    public void setItem(Long userId, Long productId, int quantity) {
+        if (quantity > 0 && !productNearCache.checkProductExists(productId)) {
+            throw new IllegalArgumentException("产品不存在: " + productId);
+        }
+        cartStore.setItem(userId, productId, Math.min(quantity, maxQuantityPerItem));
+    }
+
+    public void removeItem(Long userId, Long productId) {
+        cartStore.removeItem(userId, productId);
+    }
+
+    public void clearCart(Long userId) {
+        cartStore.clear(userId);
+    }
+
+    /**
+     * 把购物车转换为订单：取出并清空购物车，按近端缓存中的单价定价后创建订单；
+     * 购物车存储不可用时抛出 DataAccessException
+     */
+    public CheckoutResult checkout(Long userId) {
+        Map<Long, Integer> items = cartStore.takeAll(userId);
+        if (items.isEmpty()) {
+            return CheckoutResult.failure("购物车为空");
+        }
+        int itemCount = items.values().stream().mapToInt(Integer::intValue).sum();
+        if (itemCount > maxItemsPerOrder) {
+            cartStore.restore(userId, items);
+            return CheckoutResult.failure("单个订单最多 " + maxItemsPerOrder + " 件商品，购物车中有 " + itemCount + " 件");
+        }
+
+        try {
+            Map<Long, Integer> lines = new TreeMap<>(items);
+            List<Long> productIds = new ArrayList<>(itemCount);
+            lines.forEach((productId, quantity) -> productIds.addAll(Collections.nCopies(quantity, productId)));
+            Money totalAmount = pricingService.priceOf(lines);
+            Order order = orderService.createOrder(userId, productIds, totalAmount);
+            logger.info("Checked out cart of user {} into order {} ({} items)", userId, order.getId(), itemCount);
+            return CheckoutResult.success(order);
+        } catch (Exception e) {
+            cartStore.restore(userId, items);
+            logger.warn("Checkout failed for user {}, cart restored: {}", userId, e.getMessage());
+            return CheckoutResult.unavailable("下单失败: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.shophub.order.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shophub.order.model.Order;
+import com.shophub.order.model.OrderStatus;
+import com.shophub.order.model.OutboxEvent;
+import com.shophub.order.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 订单事件发件箱
+ *
+ * 只能在订单变更所在的事务中调用，事件与订单变更一起提交或一起回滚；
+ * 请求路径上只有一次本地数据库写入，不等待消息代理。
+ */
+@Component
+public class OrderEventOutbox {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderCreated(Order order) {
+        append(order, "ORDER_CREATED");
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void statusChanged(Order order, OrderStatus newStatus) {
+        append(order, eventType(newStatus));
+    }
+
+    private void append(Order order, String eventType) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("eventType", eventType);
+        event.put("orderId", order.getId());
+        event.put("userId", order.getUserId());
+        event.put("status", order.getStatus());
+        event.put("totalAmount", order.getTotalAmount());
+        event.put("currency", order.getCurrency());
+        event.put("timestamp", System.currentTimeMillis());
+        try {
+            outboxEventRepository.save(new OutboxEvent(order.getId(), eventType, objectMapper.writeValueAsString(event)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("无法序列化订单事件: " + order.getId(), e);
+        }
+    }
+
+    /**
+     * 状态到事件类型的映射，与 notification-service 识别的事件类型保持一致
+     */
+    private static String eventType(OrderStatus status) {
+        return switch (status) {
+            case CONFIRMED -> "ORDER_CONFIRMED";
+            case SHIPPED -> "ORDER_SHIPPED";
+            case DELIVERED -> "ORDER_DELIVERED";
+            case CANCELLED -> "ORDER_CANCELLED";
+            default -> "ORDER_STATUS_CHANGED";
+        };
+    }
+}
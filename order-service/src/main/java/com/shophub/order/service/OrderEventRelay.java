@@ -0,0 +1,101 @@
+package com.shophub.order.service;
+
+import com.shophub.order.model.OutboxEvent;
+import com.shophub.order.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.core.MessageDeliveryMode;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 订单事件中继
+ *
+ * 定期从发件箱按写入顺序读取一批事件，在同一个 channel 上连续发布后统一等待 RabbitMQ 确认，
+ * 全部确认后才删除这批记录。发布失败或确认超时时记录保留，下次轮询重新发布（至少一次投递，
+ * 消费方可按 messageId 去重）。
+ */
+@Component
+public class OrderEventRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderEventRelay.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final RabbitTemplate rabbitTemplate;
+    private final Counter publishedEvents;
+
+    @Value("${order.outbox.exchange:order.events}")
+    private String exchange;
+
+    @Value("${order.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${order.outbox.confirm-timeout:5s}")
+    private Duration confirmTimeout;
+
+    public OrderEventRelay(OutboxEventRepository outboxEventRepository,
+                           RabbitTemplate rabbitTemplate,
+                           MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.rabbitTemplate = rabbitTemplate;
+        this.publishedEvents = Counter.builder("orders.outbox.published")
+            .description("Order events published from the outbox and confirmed by the broker")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${order.outbox.relay-interval-ms:200}")
+    public void relay() {
+        List<OutboxEvent> batch;
+        // 一次轮询内持续发布，直到发件箱清空或某一批发布失败
+        while (!(batch = outboxEventRepository.findNextBatch(PageRequest.of(0, batchSize))).isEmpty()) {
+            if (!publish(batch)) {
+                return;
+            }
+            outboxEventRepository.deleteAllByIdInBatch(batch.stream().map(OutboxEvent::getId).toList());
+            publishedEvents.increment(batch.size());
+            if (batch.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    private boolean publish(List<OutboxEvent> batch) {
+        try {
+            rabbitTemplate.invoke(operations -> {
+                for (OutboxEvent event : batch) {
+                    operations.send(exchange, event.getEventType(), toMessage(event));
+                }
+                operations.waitForConfirmsOrDie(confirmTimeout.toMillis());
+                return null;
+            });
+            logger.debug("Published {} order events to {}", batch.size(), exchange);
+            return true;
+        } catch (Exception e) {
+            logger.warn("Failed to publish {} order events, will retry: {}", batch.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    private static Message toMessage(OutboxEvent event) {
+        return MessageBuilder.withBody(event.getPayload().getBytes(StandardCharsets.UTF_8))
+            .setContentType(MessageProperties.CONTENT_TYPE_JSON)
+            .setContentEncoding(StandardCharsets.UTF_8.name())
+            .setMessageId("order-event-" + event.getId())
+            .setTimestamp(new Date(event.getCreatedAt()))
+            .setDeliveryMode(MessageDeliveryMode.PERSISTENT)
+            .build();
+    }
+}
@@ -0,0 +1,159 @@
+package com.shophub.order.service;
+
+import com.shophub.order.model.OrderCreatedEvent;
+import com.shophub.order.model.OrderStatus;
+import com.shophub.order.model.OrderStatusTransition;
+import com.shophub.order.model.PaymentSagaState;
+import com.shophub.order.timer.HashedTimingWheel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * 订单超时自动取消
+ *
+ * 每个待确认订单在时间轮中登记两个截止时间：
+ * confirmation-timeout 内未确认且没有正在进行的支付 Saga 时取消；
+ * order-expiry 内仍未确认时无论如何取消。订单离开 PENDING 时 O(1) 取消登记，
+ * 到期的订单按 tick 批量处理，不需要周期性扫描全部订单。
+ * 由 feature.order.auto-cancellation 控制，只跟踪本实例创建的订单。
+ */
+@Service
+public class OrderExpiryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderExpiryService.class);
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private PaymentSagaOrchestrator paymentSagaOrchestrator;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${feature.order.auto-cancellation:false}")
+    private boolean autoCancellationEnabled;
+
+    @Value("${order.processing.confirmation-timeout:15m}")
+    private Duration confirmationTimeout;
+
+    @Value("${order.processing.order-expiry:24h}")
+    private Duration orderExpiry;
+
+    @Value("${order.expiry.tick:1s}")
+    private Duration tick;
+
+    @Value("${order.expiry.wheel-size:1024}")
+    private int wheelSize;
+
+    private HashedTimingWheel<Long> confirmationDeadlines;
+    private HashedTimingWheel<Long> expiryDeadlines;
+    private Counter cancelledOrders;
+
+    @PostConstruct
+    public void init() {
+        if (!autoCancellationEnabled) {
+            logger.info("Order auto-cancellation is disabled");
+            return;
+        }
+        confirmationDeadlines = new HashedTimingWheel<>("order-confirmation", tick, wheelSize, this::onConfirmationTimeout);
+        expiryDeadlines = new HashedTimingWheel<>("order-expiry", tick, wheelSize, this::onOrderExpired);
+
+        Gauge.builder("orders.expiry.pending", confirmationDeadlines, HashedTimingWheel::size)
+            .description("Orders waiting for their confirmation deadline")
+            .tag("deadline", "confirmation")
+            .register(meterRegistry);
+        Gauge.builder("orders.expiry.pending", expiryDeadlines, HashedTimingWheel::size)
+            .description("Orders waiting for their expiry deadline")
+            .tag("deadline", "expiry")
+            .register(meterRegistry);
+        cancelledOrders = Counter.builder("orders.expiry.cancelled")
+            .description("Orders cancelled automatically after a deadline")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (confirmationDeadlines != null) {
+            confirmationDeadlines.close();
+            expiryDeadlines.close();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onOrderCreated(OrderCreatedEvent event) {
+        if (confirmationDeadlines == null || event.order().getStatus() != OrderStatus.PENDING) {
+            return;
+        }
+        long createdAt = event.order().getCreatedAt();
+        confirmationDeadlines.schedule(event.order().getId(), createdAt + confirmationTimeout.toMillis());
+        expiryDeadlines.schedule(event.order().getId(), createdAt + orderExpiry.toMillis());
+    }
+
+    @TransactionalEventListener
+    public void onStatusChanged(OrderStatusTransition transition) {
+        if (confirmationDeadlines == null || transition.to() == OrderStatus.PENDING) {
+            return;
+        }
+        Long orderId = transition.order().getId();
+        confirmationDeadlines.cancel(orderId);
+        expiryDeadlines.cancel(orderId);
+    }
+
+    public int getPendingConfirmations() {
+        return confirmationDeadlines == null ? 0 : confirmationDeadlines.size();
+    }
+
+    public int getPendingExpirations() {
+        return expiryDeadlines == null ? 0 : expiryDeadlines.size();
+    }
+
+    private void onConfirmationTimeout(List<Long> orderIds) {
+        int cancelled = 0;
+        for (Long orderId : orderIds) {
+            // 支付 Saga 仍在重试的订单等到 order-expiry 再处理
+            boolean paymentInProgress = paymentSagaOrchestrator.getSaga(orderId)
+                .filter(saga -> saga.getState() == PaymentSagaState.PENDING || saga.getState() == PaymentSagaState.PAYING)
+                .isPresent();
+            if (!paymentInProgress && cancel(orderId)) {
+                cancelled++;
+            }
+        }
+        logger.info("Confirmation timeout reached for {} orders, cancelled {}", orderIds.size(), cancelled);
+    }
+
+    private void onOrderExpired(List<Long> orderIds) {
+        int cancelled = 0;
+        for (Long orderId : orderIds) {
+            if (cancel(orderId)) {
+                cancelled++;
+            }
+        }
+        logger.info("Order expiry reached for {} orders, cancelled {}", orderIds.size(), cancelled);
+    }
+
+    private boolean cancel(Long orderId) {
+        try {
+            boolean cancelled = orderService.updateStatusIf(orderId, OrderStatus.PENDING, OrderStatus.CANCELLED).isPresent();
+            if (cancelled) {
+                cancelledOrders.increment();
+            }
+            return cancelled;
+        } catch (Exception e) {
+            logger.error("Failed to cancel expired order {}", orderId, e);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.shophub.order.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shophub.common.money.Money;
+import com.shophub.order.archive.OrderArchive;
+import com.shophub.order.model.Order;
+import com.shophub.order.repository.OrderStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 订单导出
+ *
+ * 按用户和/或创建时间范围把订单逐条写成 CSV 或 NDJSON：先遍历归档段（每次只解压一个块），
+ * 再遍历内存索引，任何时候只持有一个写缓冲区，不会把结果集整体载入堆。
+ * 写入直接阻塞在响应输出流上，客户端读得慢时遍历随之放慢，形成自然的背压。
+ * 同时进行的导出数量受 max-concurrent 限制。按创建时间导出时，根据归档段头中的时间范围跳过无关的段。
+ */
+@Service
+public class OrderExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderExportService.class);
+
+    private static final String CSV_HEADER = "id,userId,status,totalAmount,currency,productIds,createdAt,updatedAt\n";
+
+    @Autowired
+    private OrderStore orderStore;
+
+    @Autowired
+    private OrderArchive orderArchive;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${order.export.max-concurrent:4}")
+    private int maxConcurrentExports;
+
+    @Value("${order.export.flush-every:500}")
+    private int flushEvery;
+
+    @Value("${order.export.buffer-size:65536}")
+    private int bufferSize;
+
+    private Semaphore exportPermits;
+    private Counter exportedOrders;
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() { return contentType; }
+
+        public String getExtension() { return extension; }
+
+        public static Format fromString(String value) {
+            if (value == null) {
+                return null;
+            }
+            try {
+                return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 导出条件：userId 为 null 表示所有用户，创建时间范围为 [from, to)
+     */
+    public record ExportQuery(Long userId, long from, long to) {
+
+        boolean matches(Order order) {
+            return (userId == null || userId.equals(order.getUserId()))
+                && order.getCreatedAt() >= from
+                && order.getCreatedAt() < to;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        exportPermits = new Semaphore(maxConcurrentExports);
+        Gauge.builder("orders.export.active", exportPermits, permits -> maxConcurrentExports - permits.availablePermits())
+            .description("Order exports currently streaming")
+            .register(meterRegistry);
+        exportedOrders = Counter.builder("orders.export.rows")
+            .description("Orders written by streaming exports")
+            .register(meterRegistry);
+    }
+
+    /**
+     * 一个导出名额，release 可重复调用，只归还一次
+     */
+    public final class ExportPermit {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private ExportPermit() {
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                exportPermits.release();
+            }
+        }
+    }
+
+    /**
+     * 申请一个导出名额，名额已满时返回空。
+     * 名额由 export 结束时归还；响应体可能根本不会执行（异步超时、客户端提前断开），
+     * 调用方还需在异步请求结束时调用 release
+     */
+    public Optional<ExportPermit> tryBeginExport() {
+        return exportPermits.tryAcquire() ? Optional.of(new ExportPermit()) : Optional.empty();
+    }
+
+    /**
+     * 把符合条件的订单写入输出流，返回写出的订单数；结束（包括客户端断开）时归还导出名额
+     */
+    public long export(ExportQuery query, Format format, OutputStream out, ExportPermit permit) throws IOException {
+        long start = System.currentTimeMillis();
+        long rows = 0;
+        try (Stream<Order> orders = matchingOrders(query)) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), bufferSize);
+            if (format == Format.CSV) {
+                writer.write(CSV_HEADER);
+            }
+            Iterator<Order> iterator = orders.iterator();
+            while (iterator.hasNext()) {
+                writeRow(writer, format, iterator.next());
+                if (++rows % flushEvery == 0) {
+                    writer.flush();
+                }
+            }
+            writer.flush();
+            logger.info("Exported {} orders as {} for {} in {} ms", rows, format, query, System.currentTimeMillis() - start);
+            return rows;
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("Order export {} aborted after {} orders: {}", query, rows, e.getMessage());
+            throw e;
+        } finally {
+            exportedOrders.increment(rows);
+            permit.release();
+        }
+    }
+
+    /**
+     * 归档订单在前、内存订单在后；内存中仍存在的订单以内存为准，跳过其归档副本
+     */
+    private Stream<Order> matchingOrders(ExportQuery query) {
+        Stream<Order> archived = orderArchive.streamCreatedBetween(query.from(), query.to())
+            .filter(query::matches)
+            .filter(order -> orderStore.findById(order.getId()).isEmpty());
+        Stream<Order> live = query.userId() != null
+            ? orderStore.streamByUserId(query.userId()).filter(query::matches)
+            : orderStore.streamByCreatedAtBetween(query.from(), query.to());
+        return Stream.concat(archived, live);
+    }
+
+    private void writeRow(Writer writer, Format format, Order order) throws IOException {
+        if (format == Format.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(order));
+            writer.write('\n');
+            return;
+        }
+        writer.write(String.valueOf(order.getId()));
+        writer.write(',');
+        writer.write(String.valueOf(order.getUserId()));
+        writer.write(',');
+        writer.write(order.getStatus().name());
+        writer.write(',');
+        Money total = order.getTotal();
+        if (total != null) {
+            writer.write(total.toBigDecimal().toPlainString());
+        }
+        writer.write(',');
+        if (total != null) {
+            writer.write(total.getCurrency());
+        }
+        writer.write(',');
+        writer.write(order.getProductIds().stream().map(String::valueOf).collect(Collectors.joining(";")));
+        writer.write(',');
+        writer.write(String.valueOf(order.getCreatedAt()));
+        writer.write(',');
+        writer.write(String.valueOf(order.getUpdatedAt()));
+        writer.write('\n');
+    }
+}
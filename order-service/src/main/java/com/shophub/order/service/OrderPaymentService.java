@@ -0,0 +1,81 @@
+package com.shophub.order.service;
+
+import com.shophub.order.client.PaymentClient;
+import com.shophub.order.feign.PaymentServiceClient;
+import com.shophub.order.model.Order;
+import com.shophub.order.model.PaymentSaga;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.github.resilience4j.retry.annotation.Retry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 订单支付服务
+ *
+ * 通过非阻塞的 WebClient 调用支付服务，返回 CompletableFuture，
+ * 等待支付结果期间不占用 Tomcat 请求线程。熔断和重试对异步调用同样生效，
+ * 降级时订单转入支付 Saga，由 PaymentSagaOrchestrator 在后台重试。
+ */
+@Service
+public class OrderPaymentService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderPaymentService.class);
+
+    @Autowired
+    private PaymentClient paymentClient;
+
+    @Autowired
+    private PaymentSagaOrchestrator paymentSagaOrchestrator;
+
+    /**
+     * 异步处理订单支付
+     */
+    @CircuitBreaker(name = "payment-service", fallbackMethod = "fallbackPayment")
+    @Retry(name = "payment-service")
+    public CompletableFuture<Map<String, Object>> processPayment(Order order) {
+        logger.info("Processing payment for order: {}", order.getId());
+
+        PaymentServiceClient.PaymentRequest paymentRequest = new PaymentServiceClient.PaymentRequest(
+            order.getId(),
+            order.getUserId(),
+            order.getTotal()
+        );
+
+        return paymentClient.processPayment(paymentRequest)
+            .thenApply(paymentResult -> {
+                Map<String, Object> response = new HashMap<>();
+                response.put("orderId", order.getId());
+                response.put("orderAmount", order.getTotalAmount());
+                response.put("paymentResult", paymentResult);
+                response.put("message", "订单支付处理完成");
+                response.put("timestamp", System.currentTimeMillis());
+                return response;
+            });
+    }
+
+    /**
+     * 支付服务降级方法：订单转入支付 Saga 稍后自动重试
+     */
+    public CompletableFuture<Map<String, Object>> fallbackPayment(Order order, Throwable ex) {
+        logger.warn("Payment service failed for order: {}, using fallback. Error: {}", order.getId(), ex.getMessage());
+
+        PaymentSaga saga = paymentSagaOrchestrator.start(order);
+
+        Map<String, Object> fallbackResponse = new HashMap<>();
+        fallbackResponse.put("orderId", order.getId());
+        fallbackResponse.put("status", "PAYMENT_PENDING");
+        fallbackResponse.put("sagaState", saga.getState());
+        fallbackResponse.put("message", "支付服务暂时不可用，订单已保存，稍后会自动重试支付");
+        fallbackResponse.put("fallback", true);
+        fallbackResponse.put("error", ex.getMessage());
+        fallbackResponse.put("timestamp", System.currentTimeMillis());
+
+        return CompletableFuture.completedFuture(fallbackResponse);
+    }
+}
@@ -0,0 +1,191 @@
+package com.shophub.order.service;
+
+import com.shophub.common.money.Money;
+import com.shophub.order.archive.OrderArchive;
+import com.shophub.order.model.Order;
+import com.shophub.order.model.OrderCreatedEvent;
+import com.shophub.order.model.OrderStatus;
+import com.shophub.order.model.OrderStatusTransition;
+import com.shophub.order.repository.OrderStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 订单服务
+ * 负责订单的创建、状态变更和查询
+ *
+ * 订单表与发件箱在同一个数据库事务中写入；订单存储的内存索引不参与事务，
+ * 发件箱写入失败或事务提交失败时，在事务回滚后按版本号撤销本事务对内存索引的修改。
+ *
+ * 数据范围：按ID查询和统计（OrderStatistics）包括已归档的冷订单；已归档订单是只读的终态订单，不能再修改状态。
+ * 按用户、状态、时间范围的列表查询和计数只覆盖内存中的热订单（归档段没有这些维度的索引，逐段扫描代价过高），
+ * 需要包括归档订单时使用导出接口（OrderExportService）。
+ */
+@Service
+public class OrderService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
+
+    @Autowired
+    private OrderStore orderStore;
+
+    @Autowired
+    private OrderArchive orderArchive;
+
+    @Autowired
+    private SnowflakeIdGenerator idGenerator;
+
+    @Autowired
+    private OrderStatistics orderStatistics;
+
+    @Autowired
+    private OrderEventOutbox orderEventOutbox;
+
+    /** 订单创建和状态变更以 Spring 事件发布，监听方在事务提交后处理 */
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 创建订单，初始状态为 PENDING，ORDER_CREATED 事件在同一事务中写入发件箱
+     */
+    @Transactional
+    public Order createOrder(Long userId, List<Long> productIds, Money totalAmount) {
+        Order order = new Order(idGenerator.nextId(), userId, productIds, OrderStatus.PENDING,
+            totalAmount, System.currentTimeMillis());
+        // 先写发件箱再写订单存储，发件箱写入失败时订单不会出现
+        orderEventOutbox.orderCreated(order);
+        orderStore.save(order);
+        Order saved = orderStore.snapshot(order.getId()).orElseThrow();
+        afterRollback(() -> orderStore.discardIfUnchanged(saved));
+        orderStatistics.recordCreated(order);
+        eventPublisher.publishEvent(new OrderCreatedEvent(order));
+        logger.info("Created order {} for user {}", order.getId(), userId);
+        return order;
+    }
+
+    /**
+     * 在一个事务中创建一组订单（批量下单的一个 chunk），返回的订单与 items 顺序一致；
+     * 整组的发件箱事件和订单表写入一起提交，任一写入失败时整组都不会保存
+     */
+    @Transactional
+    public List<Order> createOrders(List<BulkOrderService.BulkOrderItem> items) {
+        long now = System.currentTimeMillis();
+        List<Order> orders = new ArrayList<>(items.size());
+        for (BulkOrderService.BulkOrderItem item : items) {
+            Order order = new Order(idGenerator.nextId(), item.userId(), item.productIds(), OrderStatus.PENDING,
+                item.totalAmount(), now);
+            orderEventOutbox.orderCreated(order);
+            orders.add(order);
+        }
+        orderStore.saveAll(orders);
+        for (Order order : orders) {
+            Order saved = orderStore.snapshot(order.getId()).orElseThrow();
+            afterRollback(() -> orderStore.discardIfUnchanged(saved));
+            orderStatistics.recordCreated(order);
+            eventPublisher.publishEvent(new OrderCreatedEvent(order));
+        }
+        logger.info("Created {} orders in one transaction", orders.size());
+        return orders;
+    }
+
+    /**
+     * 更新订单状态，订单不存在或已归档时返回空（用 isArchived 区分）；状态确有变化时在同一事务中写入状态事件
+     */
+    @Transactional
+    public Optional<OrderStatusTransition> updateStatus(Long orderId, OrderStatus newStatus) {
+        return applyTransition(orderId, orderStore.updateStatus(orderId, newStatus));
+    }
+
+    /**
+     * 仅当订单当前处于 expectedStatus 时更新状态，用于后台任务避免覆盖并发的人工操作
+     */
+    @Transactional
+    public Optional<OrderStatusTransition> updateStatusIf(Long orderId, OrderStatus expectedStatus, OrderStatus newStatus) {
+        return applyTransition(orderId, orderStore.updateStatus(orderId, expectedStatus, newStatus));
+    }
+
+    private Optional<OrderStatusTransition> applyTransition(Long orderId, Optional<OrderStatusTransition> transition) {
+        transition.filter(t -> t.from() != t.to()).ifPresent(t -> {
+            afterRollback(() -> {
+                if (!orderStore.revertStatus(t)) {
+                    logger.warn("Order {} changed again before the rollback of {} -> {}, keeping its current status",
+                        orderId, t.from(), t.to());
+                }
+            });
+            orderEventOutbox.statusChanged(t.order(), t.to());
+            eventPublisher.publishEvent(t);
+        });
+        transition.ifPresent(t -> {
+            orderStatistics.recordTransition(t);
+            logger.info("Order {} status changed: {} -> {}", orderId, t.from(), t.to());
+        });
+        return transition;
+    }
+
+    /**
+     * 当前事务回滚后执行
+     */
+    private static void afterRollback(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * 按ID查询订单，内存中没有时查找冷订单归档
+     */
+    public Optional<Order> getOrder(Long orderId) {
+        Optional<Order> order = orderStore.findById(orderId);
+        return order.isPresent() ? order : orderArchive.findById(orderId);
+    }
+
+    /**
+     * 订单只存在于归档中（已归档且之后没有变化）
+     */
+    public boolean isArchived(Long orderId) {
+        return orderStore.findById(orderId).isEmpty() && orderArchive.findById(orderId).isPresent();
+    }
+
+    /**
+     * 用户的热订单（不含已归档订单）
+     */
+    public List<Order> getOrdersByUserId(Long userId) {
+        return orderStore.findByUserId(userId);
+    }
+
+    /**
+     * 指定状态的热订单（不含已归档订单）
+     */
+    public List<Order> getOrdersByStatus(OrderStatus status) {
+        return orderStore.findByStatus(status);
+    }
+
+    /**
+     * 创建时间在 [from, to) 内的热订单（不含已归档订单）
+     */
+    public List<Order> getOrdersCreatedBetween(long from, long to, int limit) {
+        return orderStore.findByCreatedAtBetween(from, to, limit);
+    }
+
+    /**
+     * 内存中的热订单数
+     */
+    public int countOrders() {
+        return orderStore.count();
+    }
+}
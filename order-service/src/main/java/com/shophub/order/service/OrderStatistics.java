@@ -0,0 +1,110 @@
+package com.shophub.order.service;
+
+import com.shophub.common.money.Money;
+import com.shophub.order.archive.OrderArchive;
+import com.shophub.order.model.Order;
+import com.shophub.order.model.OrderStatus;
+import com.shophub.order.model.OrderStatusTransition;
+import com.shophub.order.repository.OrderStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * 订单统计
+ *
+ * 每次创建订单和状态变更时增量更新各状态的订单数和总金额（order.pricing.currency 的最小单位），
+ * 查询统计信息是常数时间，与订单总量无关；同样的数据以 Micrometer Gauge 暴露。
+ * 统计覆盖内存中的订单和已归档的订单：归档只移动订单不改变计数，启动时一次性遍历归档段。
+ */
+@Component
+public class OrderStatistics {
+
+    @Autowired
+    private OrderStore orderStore;
+
+    @Autowired
+    private OrderArchive orderArchive;
+
+    private final LongAdder totalOrders = new LongAdder();
+    private final LongAdder revenueMinorUnits = new LongAdder();
+    private final String currency;
+    private final Map<OrderStatus, LongAdder> ordersByStatus = new EnumMap<>(OrderStatus.class);
+
+    public OrderStatistics(MeterRegistry meterRegistry, @Value("${order.pricing.currency:USD}") String currency) {
+        this.currency = currency;
+        for (OrderStatus status : OrderStatus.values()) {
+            LongAdder counter = new LongAdder();
+            ordersByStatus.put(status, counter);
+            Gauge.builder("orders.by.status", counter, LongAdder::doubleValue)
+                .description("Current number of orders in each status")
+                .tag("status", status.name())
+                .register(meterRegistry);
+        }
+        Gauge.builder("orders.total", totalOrders, LongAdder::doubleValue)
+            .description("Total number of orders")
+            .register(meterRegistry);
+        Gauge.builder("orders.revenue", this, statistics -> statistics.getTotalRevenue().doubleValue())
+            .description("Total order amount")
+            .register(meterRegistry);
+    }
+
+    /**
+     * 统计启动前已存在于存储和归档中的订单（只在启动时执行一次）；
+     * 归档后状态又发生变化而留在内存中的订单以内存中的为准
+     */
+    @PostConstruct
+    public void init() {
+        for (Order order : orderStore.findAll()) {
+            recordCreated(order);
+        }
+        try (Stream<Order> archived = orderArchive.streamAll()) {
+            archived.filter(order -> orderStore.findById(order.getId()).isEmpty())
+                .forEach(this::recordCreated);
+        }
+    }
+
+    public void recordCreated(Order order) {
+        totalOrders.increment();
+        ordersByStatus.get(order.getStatus()).increment();
+        // 只统计订单货币的金额，不同货币不能直接相加
+        if (order.getTotal() != null && order.getTotal().getCurrency().equals(currency)) {
+            revenueMinorUnits.add(order.getTotal().getMinorUnits());
+        }
+    }
+
+    public void recordTransition(OrderStatusTransition transition) {
+        if (transition.from() != transition.to()) {
+            ordersByStatus.get(transition.from()).decrement();
+            ordersByStatus.get(transition.to()).increment();
+        }
+    }
+
+    public long getTotalOrders() {
+        return totalOrders.sum();
+    }
+
+    public long getOrderCount(OrderStatus status) {
+        return ordersByStatus.get(status).sum();
+    }
+
+    public BigDecimal getTotalRevenue() {
+        return Money.ofMinor(revenueMinorUnits.sum(), currency).toBigDecimal();
+    }
+
+    public Map<String, Long> getOrdersByStatus() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        ordersByStatus.forEach((status, counter) -> counts.put(status.name(), counter.sum()));
+        return counts;
+    }
+}
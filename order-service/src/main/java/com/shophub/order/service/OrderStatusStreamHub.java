@@ -0,0 +1,249 @@
+package com.shophub.order.service;
+
+import com.shophub.order.model.OrderStatus;
+import com.shophub.order.model.OrderStatusTransition;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 订单状态变更推送（Server-Sent Events）
+ *
+ * 每个订阅者按用户登记，有一个容量为 buffer-size 的有界缓冲区。状态变更事务提交后，
+ * 事件只被放入该用户所有订阅者的缓冲区，实际写连接由少量发送线程完成，
+ * 发布方不会被慢连接阻塞。缓冲区写满说明客户端跟不上，直接断开该订阅者，
+ * 客户端（EventSource）重连后应先查询一次订单当前状态。
+ */
+@Service
+public class OrderStatusStreamHub {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatusStreamHub.class);
+
+    /** 心跳：缓冲区为空时发送注释行，保持代理连接并及时发现已断开的客户端 */
+    private static final StatusEvent HEARTBEAT = new StatusEvent(null, null, null, null, 0L);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${feature.order.order-tracking:false}")
+    private boolean orderTrackingEnabled;
+
+    @Value("${order.status-stream.buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${order.status-stream.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${order.status-stream.max-subscribers-per-user:10}")
+    private int maxSubscribersPerUser;
+
+    @Value("${order.status-stream.timeout:30m}")
+    private Duration streamTimeout;
+
+    @Value("${order.status-stream.sender-threads:4}")
+    private int senderThreads;
+
+    private final Map<Long, Set<Subscriber>> subscribersByUser = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private ExecutorService senderExecutor;
+    private Counter sentEvents;
+    private Counter overflowedSubscribers;
+
+    /**
+     * 推送给客户端的状态变更
+     */
+    public record StatusEvent(Long orderId, Long userId, OrderStatus previousStatus, OrderStatus newStatus, long updatedAt) {
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        senderExecutor = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "order-status-stream-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("orders.status-stream.subscribers", subscriberCount, AtomicInteger::get)
+            .description("Connected order status stream subscribers")
+            .register(meterRegistry);
+        sentEvents = Counter.builder("orders.status-stream.events")
+            .description("Order status events written to subscribers")
+            .register(meterRegistry);
+        overflowedSubscribers = Counter.builder("orders.status-stream.overflows")
+            .description("Subscribers disconnected because their buffer was full")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribersByUser.values().forEach(subscribers -> subscribers.forEach(Subscriber::close));
+        senderExecutor.shutdown();
+    }
+
+    public boolean isEnabled() {
+        return orderTrackingEnabled;
+    }
+
+    /**
+     * 订阅用户的订单状态变更，超过订阅上限时返回空
+     */
+    public Optional<SseEmitter> subscribe(Long userId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return Optional.empty();
+        }
+        Subscriber subscriber = new Subscriber(userId, new SseEmitter(streamTimeout.toMillis()));
+        boolean[] added = {false};
+        subscribersByUser.compute(userId, (id, subscribers) -> {
+            Set<Subscriber> set = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+            if (set.size() < maxSubscribersPerUser) {
+                added[0] = set.add(subscriber);
+            }
+            return set.isEmpty() ? null : set;
+        });
+        if (!added[0]) {
+            subscriberCount.decrementAndGet();
+            return Optional.empty();
+        }
+
+        SseEmitter emitter = subscriber.emitter;
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(error -> unsubscribe(subscriber));
+        // 立即写出一个心跳，让代理尽早转发响应头
+        subscriber.offer(HEARTBEAT);
+        return Optional.of(emitter);
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @TransactionalEventListener
+    public void onStatusChanged(OrderStatusTransition transition) {
+        Set<Subscriber> subscribers = subscribersByUser.get(transition.order().getUserId());
+        if (subscribers == null || subscribers.isEmpty()) {
+            return;
+        }
+        StatusEvent event = new StatusEvent(transition.order().getId(), transition.order().getUserId(),
+            transition.from(), transition.to(), transition.order().getUpdatedAt());
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.status-stream.heartbeat-ms:15000}")
+    public void sendHeartbeats() {
+        for (Set<Subscriber> subscribers : subscribersByUser.values()) {
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.buffer.isEmpty()) {
+                    subscriber.offer(HEARTBEAT);
+                }
+            }
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        subscribersByUser.computeIfPresent(subscriber.userId, (id, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+        subscriberCount.decrementAndGet();
+    }
+
+    /**
+     * 一个 SSE 连接：事件先进入有界缓冲区，同一时刻最多一个发送线程在排空它
+     */
+    private final class Subscriber {
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final BlockingQueue<StatusEvent> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Subscriber(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        void offer(StatusEvent event) {
+            if (closed.get()) {
+                return;
+            }
+            if (!buffer.offer(event)) {
+                overflowedSubscribers.increment();
+                logger.warn("Order status stream buffer full for user {}, disconnecting subscriber", userId);
+                close();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                senderExecutor.execute(this::drain);
+            }
+        }
+
+        void close() {
+            unsubscribe(this);
+            buffer.clear();
+            emitter.complete();
+        }
+
+        private void drain() {
+            try {
+                StatusEvent event;
+                while (!closed.get() && (event = buffer.poll()) != null) {
+                    send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // 客户端已断开或连接已完成
+                logger.debug("Order status stream for user {} closed: {}", userId, e.getMessage());
+                unsubscribe(this);
+                buffer.clear();
+            } finally {
+                draining.set(false);
+            }
+            // 排空结束与新事件入队之间存在窗口，重新检查一次
+            if (!closed.get() && !buffer.isEmpty() && draining.compareAndSet(false, true)) {
+                senderExecutor.execute(this::drain);
+            }
+        }
+
+        private void send(StatusEvent event) throws IOException {
+            if (event == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+                return;
+            }
+            emitter.send(SseEmitter.event()
+                .id(event.orderId() + "-" + event.updatedAt())
+                .name("order-status")
+                .data(event));
+            sentEvents.increment();
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.shophub.order.service;
+
+import com.shophub.order.client.ConcurrencyLimitExceededException;
+import com.shophub.order.client.PaymentClient;
+import com.shophub.order.feign.PaymentServiceClient;
+import com.shophub.order.model.Order;
+import com.shophub.order.model.OrderStatus;
+import com.shophub.order.model.PaymentSaga;
+import com.shophub.order.model.PaymentSagaState;
+import com.shophub.order.repository.PaymentSagaRepository;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 订单支付 Saga 编排器
+ *
+ * 支付服务不可用时订单进入 Saga，由定时任务从数据库中取出到期的 Saga 异步调用支付服务：
+ * 成功后确认订单，失败按指数退避重试，重试次数耗尽后取消订单。
+ * Saga 状态持久化在数据库中，服务重启后 PENDING 的 Saga 照常重试。
+ * 每次尝试都先查询支付服务是否已经扣款（请求路径上可能已经发起过支付，之前的尝试也可能超时但实际成功），
+ * 查询失败时本次尝试按失败处理、稍后重试，不在无法确认的情况下重新扣款。
+ * 被并发限制或熔断器拒绝的尝试没有到达支付服务，改期重试且不计入尝试次数。
+ * 每次派发前确认订单存在且仍为 PENDING，否则 Saga 直接失败，不会为不存在或已处理的订单扣款。
+ * 支付结果在专用线程池中落库，不占用 WebClient 的 I/O 线程。
+ */
+@Service
+public class PaymentSagaOrchestrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentSagaOrchestrator.class);
+
+    @Autowired
+    private PaymentSagaRepository paymentSagaRepository;
+
+    @Autowired
+    private PaymentClient paymentClient;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${order.payment.saga.batch-size:20}")
+    private int batchSize;
+
+    @Value("${order.payment.saga.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${order.payment.saga.initial-backoff:2s}")
+    private Duration initialBackoff;
+
+    @Value("${order.payment.saga.max-backoff:5m}")
+    private Duration maxBackoff;
+
+    @Value("${order.payment.saga.paying-timeout:60s}")
+    private Duration payingTimeout;
+
+    @Value("${order.payment.saga.max-in-flight:200}")
+    private int maxInFlight;
+
+    @Value("${order.payment.saga.completion-threads:2}")
+    private int completionThreads;
+
+    /** 本实例正在等待支付结果的订单，避免同一个 Saga 被重复派发 */
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    /** 记录支付结果的线程池；队列容量等于 maxInFlight，派发数不超过它，所以不会拒绝任务 */
+    private ThreadPoolExecutor completionExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        completionExecutor = new ThreadPoolExecutor(completionThreads, completionThreads, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, maxInFlight)),
+            runnable -> {
+                Thread thread = new Thread(runnable, "payment-saga-complete-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        completionExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        completionExecutor.shutdown();
+    }
+
+    /**
+     * 为订单开启支付 Saga，已存在时直接返回已有的 Saga
+     */
+    public PaymentSaga start(Order order) {
+        Optional<PaymentSaga> existing = paymentSagaRepository.findById(order.getId());
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        try {
+            PaymentSaga saga = paymentSagaRepository.save(new PaymentSaga(
+                order.getId(), order.getUserId(), order.getTotal()));
+            logger.info("Started payment saga for order {}", order.getId());
+            return saga;
+        } catch (DataIntegrityViolationException e) {
+            // 并发开启同一个订单的 Saga
+            return paymentSagaRepository.findById(order.getId()).orElseThrow(() -> e);
+        }
+    }
+
+    public Optional<PaymentSaga> getSaga(Long orderId) {
+        return paymentSagaRepository.findById(orderId);
+    }
+
+    public Map<PaymentSagaState, Long> countByState() {
+        Map<PaymentSagaState, Long> counts = new EnumMap<>(PaymentSagaState.class);
+        for (PaymentSagaState state : PaymentSagaState.values()) {
+            counts.put(state, paymentSagaRepository.countByState(state));
+        }
+        return counts;
+    }
+
+    @Scheduled(fixedDelayString = "${order.payment.saga.poll-interval-ms:1000}")
+    public void poll() {
+        long now = System.currentTimeMillis();
+
+        for (PaymentSaga saga : paymentSagaRepository.findStalePaying(now - payingTimeout.toMillis())) {
+            if (!inFlight.contains(saga.getOrderId())) {
+                saga.retryAt(now, "等待支付结果超时，重新核对支付状态", now);
+                saveQuietly(saga);
+            }
+        }
+
+        for (PaymentSaga saga : paymentSagaRepository.findDue(now, PageRequest.of(0, batchSize))) {
+            if (inFlight.size() >= maxInFlight) {
+                return;
+            }
+            dispatch(saga, now);
+        }
+    }
+
+    private void dispatch(PaymentSaga saga, long now) {
+        Long orderId = saga.getOrderId();
+        if (!inFlight.add(orderId)) {
+            return;
+        }
+        // 只为仍在等待支付的订单扣款：订单找不到（如恢复的 Saga 对应的订单已丢失）、
+        // 在等待重试期间已被取消（如超时自动取消）或已被手动处理时，Saga 直接失败
+        Optional<Order> order = orderService.getOrder(orderId);
+        if (order.isEmpty() || order.get().getStatus() != OrderStatus.PENDING) {
+            String reason = order.map(o -> "订单不再等待支付: " + o.getStatus()).orElse("订单不存在");
+            saga.markFailed(reason, now);
+            saveQuietly(saga);
+            inFlight.remove(orderId);
+            logger.warn("Payment saga for order {} failed without charging: {}", orderId, reason);
+            return;
+        }
+        saga.startAttempt(now);
+        PaymentSaga claimed;
+        try {
+            claimed = paymentSagaRepository.save(saga);
+        } catch (OptimisticLockingFailureException e) {
+            inFlight.remove(orderId);
+            return;
+        }
+
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker("payment-service");
+        circuitBreaker.executeCompletionStage(() -> attempt(claimed))
+            .whenCompleteAsync((result, error) -> {
+                try {
+                    complete(orderId, result, error);
+                } catch (Exception e) {
+                    logger.error("Failed to record payment saga result for order {}", orderId, e);
+                } finally {
+                    inFlight.remove(orderId);
+                }
+            }, completionExecutor);
+    }
+
+    /**
+     * 先查询支付服务中该订单的支付记录：已成功时直接返回，仍在处理中时本次尝试失败，
+     * 没有记录或上一次支付失败时才发起支付。查询失败时不发起支付
+     */
+    private CompletionStage<Map<String, Object>> attempt(PaymentSaga saga) {
+        PaymentServiceClient.PaymentRequest request = new PaymentServiceClient.PaymentRequest(
+            saga.getOrderId(), saga.getUserId(), saga.getTotal());
+        return paymentClient.findPaymentByOrderId(saga.getOrderId())
+            .thenCompose(existing -> {
+                if (existing.isEmpty() || isFailed(existing.get())) {
+                    return paymentClient.processPayment(request);
+                }
+                if (isCompleted(existing.get())) {
+                    return CompletableFuture.completedFuture(existing.get());
+                }
+                return CompletableFuture.failedFuture(
+                    new IllegalStateException("支付处理中: " + existing.get().get("status")));
+            });
+    }
+
+    private void complete(Long orderId, Map<String, Object> result, Throwable error) {
+        PaymentSaga saga = paymentSagaRepository.findById(orderId).orElse(null);
+        if (saga == null || saga.getState() != PaymentSagaState.PAYING) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+
+        if (error == null && isCompleted(result)) {
+            transactionTemplate.executeWithoutResult(status -> {
+                saga.markPaid(String.valueOf(result.get("paymentId")), now);
+                paymentSagaRepository.save(saga);
+                transitionOrder(orderId, OrderStatus.CONFIRMED);
+            });
+            logger.info("Payment saga for order {} completed after {} attempt(s)", orderId, saga.getAttempts());
+            return;
+        }
+
+        Throwable cause = error != null ? rootCause(error) : null;
+        String reason = cause != null
+            ? cause.getMessage()
+            : "支付未成功: " + (result == null ? "空响应" : result.getOrDefault("message", result.get("status")));
+        if (isNotAttempted(cause)) {
+            long nextAttemptAt = now + backoff(1);
+            saga.deferAttempt(nextAttemptAt, reason, now);
+            saveQuietly(saga);
+            logger.debug("Payment attempt for order {} was not sent, retrying in {} ms: {}",
+                orderId, nextAttemptAt - now, reason);
+            return;
+        }
+        if (saga.getAttempts() >= maxAttempts) {
+            transactionTemplate.executeWithoutResult(status -> {
+                saga.markFailed(reason, now);
+                paymentSagaRepository.save(saga);
+                transitionOrder(orderId, OrderStatus.CANCELLED);
+            });
+            logger.warn("Payment saga for order {} failed after {} attempts: {}", orderId, saga.getAttempts(), reason);
+        } else {
+            long nextAttemptAt = now + backoff(saga.getAttempts());
+            saga.retryAt(nextAttemptAt, reason, now);
+            saveQuietly(saga);
+            logger.info("Payment attempt {} for order {} failed, retrying in {} ms: {}",
+                saga.getAttempts(), orderId, nextAttemptAt - now, reason);
+        }
+    }
+
+    /**
+     * 只推进仍处于 PENDING 的订单，订单已被手动处理时不覆盖
+     */
+    private void transitionOrder(Long orderId, OrderStatus newStatus) {
+        orderService.updateStatusIf(orderId, OrderStatus.PENDING, newStatus);
+    }
+
+    /**
+     * 指数退避，附加 ±20% 抖动避免大量 Saga 同时重试
+     */
+    private long backoff(int attempts) {
+        long base = initialBackoff.toMillis() << Math.min(attempts - 1, 20);
+        long capped = Math.min(base, maxBackoff.toMillis());
+        double jitter = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        return (long) (capped * jitter);
+    }
+
+    private void saveQuietly(PaymentSaga saga) {
+        try {
+            paymentSagaRepository.save(saga);
+        } catch (OptimisticLockingFailureException e) {
+            logger.debug("Payment saga for order {} was updated concurrently", saga.getOrderId());
+        }
+    }
+
+    private static boolean isCompleted(Map<String, Object> payment) {
+        return payment != null && "COMPLETED".equals(String.valueOf(payment.get("status")));
+    }
+
+    private static boolean isFailed(Map<String, Object> payment) {
+        return "FAILED".equals(String.valueOf(payment.get("status")));
+    }
+
+    /**
+     * 请求在本地被并发限制或熔断器拒绝，没有到达支付服务
+     */
+    private static boolean isNotAttempted(Throwable cause) {
+        return cause instanceof ConcurrencyLimitExceededException || cause instanceof CallNotPermittedException;
+    }
+
+    private static Throwable rootCause(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+}
@@ -0,0 +1,70 @@
+package com.shophub.order.service;
+
+import com.shophub.common.money.Money;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 订单定价
+ *
+ * 所有订单金额使用 order.pricing.currency。单价取自近端缓存中已转换好的 Money，
+ * 合计按最小单位做 long 运算，只在最后创建一个 Money。
+ */
+@Service
+public class PricingService {
+
+    @Autowired
+    private ProductNearCache productNearCache;
+
+    @Value("${order.pricing.currency:USD}")
+    private String currency;
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    /**
+     * 把请求中的金额转换为订单货币，小数位超过货币最小单位时抛出 IllegalArgumentException
+     */
+    public Money toMoney(Number amount) {
+        try {
+            return Money.of(amount, currency);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("金额超出 " + currency + " 的精度或范围: " + amount);
+        }
+    }
+
+    /**
+     * 产品ID列表的总价，同一产品出现多次按多件计价
+     */
+    public Money priceOf(List<Long> productIds) {
+        long total = 0;
+        for (Long productId : productIds) {
+            total = Math.addExact(total, unitPrice(productId).getMinorUnits());
+        }
+        return Money.ofMinor(total, currency);
+    }
+
+    /**
+     * 产品ID -> 数量 的总价
+     */
+    public Money priceOf(Map<Long, Integer> quantities) {
+        long total = 0;
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            total = Math.addExact(total, Math.multiplyExact(unitPrice(line.getKey()).getMinorUnits(), line.getValue()));
+        }
+        return Money.ofMinor(total, currency);
+    }
+
+    private Money unitPrice(Long productId) {
+        Money price = productNearCache.getPrice(productId, currency);
+        if (price == null) {
+            throw new IllegalStateException("产品 " + productId + " 缺少价格");
+        }
+        return price;
+    }
+}
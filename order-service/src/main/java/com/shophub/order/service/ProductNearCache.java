@@ -0,0 +1,193 @@
+package com.shophub.order.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.shophub.common.money.Money;
+import com.shophub.order.feign.ProductServiceClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 产品信息近端缓存
+ *
+ * 在订单服务本地缓存产品详情、产品存在性和单价，容量有上限并按 TTL 过期，
+ * 收到 product.events 中的产品变更事件时主动失效，热门产品的重复查询不再产生跨服务调用。
+ * 只缓存成功的响应，异常和降级响应不会进入缓存。
+ * 未命中时先记下产品的失效代数再调用产品服务，写回时代数已变（期间收到过失效）则丢弃结果，
+ * 调用产品服务期间到达的变更事件不会被旧值覆盖。
+ */
+@Component
+public class ProductNearCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductNearCache.class);
+
+    /** 失效代数按产品ID分段计数，内存固定；不同产品落在同一段时只会多丢弃一次写回 */
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final ProductServiceClient productServiceClient;
+    private final Cache<Long, Map<String, Object>> productDetails;
+    private final Cache<Long, Boolean> productExists;
+    private final Cache<Long, Money> productPrices;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public ProductNearCache(ProductServiceClient productServiceClient,
+                            MeterRegistry meterRegistry,
+                            @Value("${order.product-cache.ttl:60s}") Duration ttl,
+                            @Value("${order.product-cache.max-size:10000}") long maxSize) {
+        this.productServiceClient = productServiceClient;
+        this.productDetails = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+        this.productExists = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+        this.productPrices = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+
+        // 暴露 cache.gets{result=hit|miss} 等指标，用于计算命中率
+        CaffeineCacheMetrics.monitor(meterRegistry, productDetails, "product-details");
+        CaffeineCacheMetrics.monitor(meterRegistry, productExists, "product-exists");
+        CaffeineCacheMetrics.monitor(meterRegistry, productPrices, "product-prices");
+    }
+
+    /**
+     * 获取产品详情，未命中时调用产品服务
+     */
+    public Map<String, Object> getProductDetails(Long productId) {
+        Map<String, Object> cached = productDetails.getIfPresent(productId);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = generation(productId);
+        Map<String, Object> details = productServiceClient.getProductDetails(productId);
+        if (details != null && !details.containsKey("error")) {
+            putIfCurrent(productDetails, productId, details, generation);
+            // 能查到详情说明产品存在
+            putIfCurrent(productExists, productId, Boolean.TRUE, generation);
+        }
+        return details;
+    }
+
+    /**
+     * 获取产品单价，缓存已转换好的 Money，重复定价不再解析产品详情中的价格；产品没有价格时返回 null
+     */
+    public Money getPrice(Long productId, String currency) {
+        Money cached = productPrices.getIfPresent(productId);
+        if (cached != null && cached.getCurrency().equals(currency)) {
+            return cached;
+        }
+        // 在读取详情之前记下代数：详情本身可能来自缓存，期间失效时价格同样不能写回
+        long generation = generation(productId);
+        Map<String, Object> details = getProductDetails(productId);
+        if (details == null || details.containsKey("error") || !(details.get("price") instanceof Number price)) {
+            return null;
+        }
+        Money money = Money.of(price, currency);
+        putIfCurrent(productPrices, productId, money, generation);
+        return money;
+    }
+
+    /**
+     * 检查产品是否存在，未命中时调用产品服务
+     */
+    public boolean checkProductExists(Long productId) {
+        Boolean cached = productExists.getIfPresent(productId);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = generation(productId);
+        Map<String, Object> response = productServiceClient.checkProductExists(productId);
+        boolean exists = response != null && Boolean.TRUE.equals(response.get("exists"));
+        if (response != null && !"fallback".equals(response.get("serviceInstance"))) {
+            putIfCurrent(productExists, productId, exists, generation);
+        }
+        return exists;
+    }
+
+    /**
+     * 使单个产品的缓存失效
+     */
+    public void invalidate(Long productId) {
+        // 先递增代数再删除，与 putIfCurrent 的写后复查配合，任何交错下旧值都不会留在缓存中
+        generations.incrementAndGet(stripe(productId));
+        productDetails.invalidate(productId);
+        productExists.invalidate(productId);
+        productPrices.invalidate(productId);
+        logger.debug("Invalidated near cache for product {}", productId);
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        productDetails.invalidateAll();
+        productExists.invalidateAll();
+        productPrices.invalidateAll();
+        logger.info("Invalidated all product near cache entries");
+    }
+
+    /**
+     * 缓存统计信息
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("productDetails", toMap(productDetails));
+        stats.put("productExists", toMap(productExists));
+        stats.put("productPrices", toMap(productPrices));
+        return stats;
+    }
+
+    private long generation(Long productId) {
+        return generations.get(stripe(productId));
+    }
+
+    /**
+     * 代数未变时写入缓存；写入后再复查一次，期间发生失效则撤回这次写入（只删除自己写入的值）
+     */
+    private <V> void putIfCurrent(Cache<Long, V> cache, Long productId, V value, long generation) {
+        int stripe = stripe(productId);
+        if (generations.get(stripe) != generation) {
+            return;
+        }
+        cache.put(productId, value);
+        if (generations.get(stripe) != generation) {
+            cache.asMap().remove(productId, value);
+        }
+    }
+
+    private static int stripe(Long productId) {
+        long h = productId * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (GENERATION_STRIPES - 1);
+    }
+
+    private static Map<String, Object> toMap(Cache<Long, ?> cache) {
+        CacheStats stats = cache.stats();
+        Map<String, Object> info = new HashMap<>();
+        info.put("size", cache.estimatedSize());
+        info.put("hitCount", stats.hitCount());
+        info.put("missCount", stats.missCount());
+        info.put("hitRate", stats.hitRate());
+        info.put("evictionCount", stats.evictionCount());
+        return info;
+    }
+}
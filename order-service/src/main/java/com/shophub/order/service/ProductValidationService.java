@@ -0,0 +1,128 @@
+package com.shophub.order.service;
+
+import com.shophub.order.config.VendorHeaderPropagation;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 产品校验服务
+ *
+ * 下单时并发校验订单中的所有产品，所有调用共享一个总超时，
+ * 校验耗时取决于最慢的一次产品查询，而不是所有查询耗时之和。
+ */
+@Service
+public class ProductValidationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductValidationService.class);
+
+    @Autowired
+    private ProductNearCache productNearCache;
+
+    @Autowired
+    private VendorHeaderPropagation vendorHeaderPropagation;
+
+    @Value("${order.validation.timeout:3s}")
+    private Duration timeout;
+
+    @Value("${order.validation.max-concurrency:16}")
+    private int maxConcurrency;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, "product-validation-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 并发校验一组产品ID
+     */
+    public ValidationResult validateProducts(Collection<Long> productIds) {
+        List<Long> distinctIds = new ArrayList<>(new LinkedHashSet<>(productIds));
+        Map<Long, CompletableFuture<Boolean>> checks = new LinkedHashMap<>();
+        for (Long productId : distinctIds) {
+            // 校验在线程池中发出，由 wrap 把入站请求指定的供应商带过去
+            checks.put(productId, CompletableFuture.supplyAsync(
+                vendorHeaderPropagation.wrap(() -> productNearCache.checkProductExists(productId)), executor));
+        }
+
+        boolean timedOut = false;
+        try {
+            CompletableFuture.allOf(checks.values().toArray(new CompletableFuture<?>[0]))
+                .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timedOut = true;
+            logger.warn("Product validation exceeded {} for products {}", timeout, distinctIds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            timedOut = true;
+        } catch (ExecutionException e) {
+            // 单个产品的失败在下面逐个处理
+        }
+
+        List<Long> validIds = new ArrayList<>();
+        List<Long> missingIds = new ArrayList<>();
+        List<Long> unverifiedIds = new ArrayList<>();
+        checks.forEach((productId, check) -> {
+            if (!check.isDone() || check.isCompletedExceptionally()) {
+                check.cancel(true);
+                unverifiedIds.add(productId);
+            } else if (check.join()) {
+                validIds.add(productId);
+            } else {
+                missingIds.add(productId);
+            }
+        });
+
+        return new ValidationResult(validIds, missingIds, unverifiedIds, timedOut);
+    }
+
+    /**
+     * 产品校验结果
+     *
+     * @param validIds      存在的产品
+     * @param missingIds    不存在的产品
+     * @param unverifiedIds 因超时或产品服务异常未能校验的产品
+     * @param timedOut      是否触发了总超时
+     */
+    public record ValidationResult(List<Long> validIds, List<Long> missingIds,
+                                   List<Long> unverifiedIds, boolean timedOut) {
+
+        public boolean isValid() {
+            return missingIds.isEmpty() && unverifiedIds.isEmpty();
+        }
+    }
+}
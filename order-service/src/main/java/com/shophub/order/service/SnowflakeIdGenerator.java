@@ -0,0 +1,109 @@
+package com.shophub.order.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.netflix.eureka.EurekaInstanceConfigBean;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 订单ID生成器（Snowflake 结构）
+ *
+ * 64 位ID：1 位符号 | 41 位毫秒时间戳（相对 2024-01-01） | 10 位 workerId | 12 位序列号
+ * workerId 取自 Eureka 实例元数据 worker-id，保证多个订单服务实例生成的ID不冲突。
+ * 时间戳和序列号打包在一个 AtomicLong 中，通过 CAS 推进，热路径无锁、无数据库访问。
+ * 同一毫秒内序列号用完或时钟回拨时，逻辑时间继续向前借用，ID 仍然唯一且单调递增。
+ */
+@Component
+public class SnowflakeIdGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnowflakeIdGenerator.class);
+
+    public static final String WORKER_ID_METADATA_KEY = "worker-id";
+
+    /** 2024-01-01T00:00:00Z */
+    private static final long EPOCH = 1704067200000L;
+
+    private static final int WORKER_ID_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_WORKER_ID = (1L << WORKER_ID_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIMESTAMP_SHIFT = WORKER_ID_BITS + SEQUENCE_BITS;
+
+    private final long workerId;
+
+    /** 高位为相对时间戳，低 12 位为序列号 */
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeIdGenerator(ObjectProvider<EurekaInstanceConfigBean> eurekaInstanceConfig,
+                                @Value("${spring.application.name}") String serviceName,
+                                @Value("${server.port:8083}") String serverPort) {
+        this.workerId = resolveWorkerId(eurekaInstanceConfig.getIfAvailable(), serviceName + ":" + serverPort);
+        logger.info("Order id generator initialized with workerId {}", workerId);
+    }
+
+    /**
+     * 生成下一个ID
+     */
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long now = System.currentTimeMillis() - EPOCH;
+            long next = (current >>> SEQUENCE_BITS) < now ? now << SEQUENCE_BITS : current + 1;
+            if (state.compareAndSet(current, next)) {
+                return ((next >>> SEQUENCE_BITS) << TIMESTAMP_SHIFT)
+                    | (workerId << SEQUENCE_BITS)
+                    | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * 从ID中解析生成时间（毫秒时间戳）
+     */
+    public static long extractTimestamp(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH;
+    }
+
+    /**
+     * 从ID中解析 workerId
+     */
+    public static long extractWorkerId(long id) {
+        return (id >>> SEQUENCE_BITS) & MAX_WORKER_ID;
+    }
+
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    /**
+     * 优先使用 Eureka 元数据中的 worker-id；未配置时按实例标识哈希生成，并回写到元数据便于排查冲突
+     */
+    private static long resolveWorkerId(EurekaInstanceConfigBean instanceConfig, String fallbackInstanceId) {
+        Map<String, String> metadata = instanceConfig != null ? instanceConfig.getMetadataMap() : null;
+        String configured = metadata != null ? metadata.get(WORKER_ID_METADATA_KEY) : null;
+
+        if (configured != null && !configured.isBlank()) {
+            long id = Long.parseLong(configured.trim());
+            if (id < 0 || id > MAX_WORKER_ID) {
+                throw new IllegalStateException("worker-id 超出范围 [0, " + MAX_WORKER_ID + "]: " + id);
+            }
+            return id;
+        }
+
+        String instanceId = instanceConfig != null && instanceConfig.getInstanceId() != null
+            ? instanceConfig.getInstanceId() : fallbackInstanceId;
+        long id = Math.floorMod(instanceId.hashCode(), MAX_WORKER_ID + 1);
+        logger.warn("No {} in Eureka metadata, derived workerId {} from instance id {}; "
+            + "configure eureka.instance.metadata-map.worker-id to guarantee uniqueness",
+            WORKER_ID_METADATA_KEY, id, instanceId);
+        if (metadata != null) {
+            metadata.put(WORKER_ID_METADATA_KEY, String.valueOf(id));
+        }
+        return id;
+    }
+}
@@ -0,0 +1,263 @@
+package com.shophub.order.timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.Consumer;
+
+/**
+ * 按键去重的哈希时间轮
+ *
+ * 时间被划分为固定长度的 tick，wheelSize 个槽位组成一圈，每个截止时间落入
+ * (截止 tick % wheelSize) 号槽位并记录还需经过的圈数。插入和取消都是 O(1)：
+ * 调用线程只把任务放入无锁队列，由单个工作线程在每个 tick 开始时挂入或摘除槽位链表；
+ * 每个 tick 只遍历当前槽位，到期的键汇总成一批交给回调，而不是每个键一个定时任务。
+ * 同一个键重复调度时以最后一次为准。
+ *
+ * @param <K> 键类型，需要正确实现 equals/hashCode
+ */
+public class HashedTimingWheel<K> implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(HashedTimingWheel.class);
+
+    /** 每个 tick 最多从待插入队列转移的任务数，避免突发插入拖慢到期处理 */
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final String name;
+    private final long tickMillis;
+    private final Bucket<K>[] wheel;
+    private final int mask;
+    private final Consumer<List<K>> expiryHandler;
+
+    private final Map<K, Entry<K>> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry<K>> pendingEntries = new ConcurrentLinkedQueue<>();
+    private final Queue<Entry<K>> cancelledEntries = new ConcurrentLinkedQueue<>();
+
+    private final Thread worker;
+    private final ExecutorService handlerExecutor;
+    private volatile boolean running = true;
+    private final long startTime;
+    private long tick;
+
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(String name, Duration tickDuration, int wheelSize, Consumer<List<K>> expiryHandler) {
+        if (tickDuration.toMillis() <= 0) {
+            throw new IllegalArgumentException("tickDuration must be at least 1ms");
+        }
+        this.name = name;
+        this.tickMillis = tickDuration.toMillis();
+        int size = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket<>();
+        }
+        this.mask = size - 1;
+        this.expiryHandler = expiryHandler;
+        this.handlerExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name + "-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.worker = new Thread(this::run, name + "-wheel");
+        this.worker.setDaemon(true);
+        this.startTime = System.currentTimeMillis();
+        this.worker.start();
+    }
+
+    /**
+     * 调度（或重新调度）一个键在 deadlineMillis（epoch 毫秒）到期
+     */
+    public void schedule(K key, long deadlineMillis) {
+        Entry<K> entry = new Entry<>(key, deadlineMillis);
+        Entry<K> previous = entries.put(key, entry);
+        if (previous != null && previous.cancel()) {
+            cancelledEntries.add(previous);
+        }
+        pendingEntries.add(entry);
+    }
+
+    /**
+     * 取消一个键，返回是否在到期前成功取消
+     */
+    public boolean cancel(K key) {
+        Entry<K> entry = entries.remove(key);
+        if (entry != null && entry.cancel()) {
+            cancelledEntries.add(entry);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 当前等待到期的键数量
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+        handlerExecutor.shutdown();
+    }
+
+    private void run() {
+        while (running) {
+            long deadline = startTime + (tick + 1) * tickMillis;
+            long sleepMillis = deadline - System.currentTimeMillis();
+            if (sleepMillis > 0) {
+                try {
+                    Thread.sleep(sleepMillis);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                }
+                continue;
+            }
+            try {
+                processCancelled();
+                transferPending();
+                expire(wheel[(int) (tick & mask)]);
+            } catch (Throwable t) {
+                logger.error("Timing wheel {} failed on tick {}", name, tick, t);
+            }
+            tick++;
+        }
+    }
+
+    private void processCancelled() {
+        Entry<K> entry;
+        while ((entry = cancelledEntries.poll()) != null) {
+            if (entry.bucket != null) {
+                entry.bucket.remove(entry);
+            }
+        }
+    }
+
+    private void transferPending() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Entry<K> entry = pendingEntries.poll();
+            if (entry == null) {
+                return;
+            }
+            if (entry.state != Entry.ST_PENDING) {
+                continue;
+            }
+            long targetTick = Math.max((entry.deadline - startTime) / tickMillis, tick);
+            entry.remainingRounds = (targetTick - tick) / wheel.length;
+            wheel[(int) (targetTick & mask)].add(entry);
+        }
+    }
+
+    private void expire(Bucket<K> bucket) {
+        List<K> expired = new ArrayList<>();
+        Entry<K> entry = bucket.head;
+        while (entry != null) {
+            Entry<K> next = entry.next;
+            if (entry.state == Entry.ST_CANCELLED) {
+                bucket.remove(entry);
+            } else if (entry.remainingRounds <= 0) {
+                bucket.remove(entry);
+                if (entry.expire()) {
+                    entries.remove(entry.key, entry);
+                    expired.add(entry.key);
+                }
+            } else {
+                entry.remainingRounds--;
+            }
+            entry = next;
+        }
+        if (!expired.isEmpty()) {
+            handlerExecutor.execute(() -> {
+                try {
+                    expiryHandler.accept(expired);
+                } catch (Exception e) {
+                    logger.error("Timing wheel {} expiry handler failed for {} keys", name, expired.size(), e);
+                }
+            });
+        }
+    }
+
+    /**
+     * 槽位：由工作线程独占访问的双向链表
+     */
+    private static final class Bucket<K> {
+        private Entry<K> head;
+        private Entry<K> tail;
+
+        void add(Entry<K> entry) {
+            entry.bucket = this;
+            if (head == null) {
+                head = tail = entry;
+            } else {
+                tail.next = entry;
+                entry.prev = tail;
+                tail = entry;
+            }
+        }
+
+        void remove(Entry<K> entry) {
+            if (entry.bucket != this) {
+                return;
+            }
+            if (entry.prev != null) {
+                entry.prev.next = entry.next;
+            } else {
+                head = entry.next;
+            }
+            if (entry.next != null) {
+                entry.next.prev = entry.prev;
+            } else {
+                tail = entry.prev;
+            }
+            entry.prev = null;
+            entry.next = null;
+            entry.bucket = null;
+        }
+    }
+
+    private static final class Entry<K> {
+        static final int ST_PENDING = 0;
+        static final int ST_CANCELLED = 1;
+        static final int ST_EXPIRED = 2;
+
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<Entry> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(Entry.class, "state");
+
+        final K key;
+        final long deadline;
+        volatile int state = ST_PENDING;
+
+        // 以下字段只由工作线程访问
+        long remainingRounds;
+        Bucket<K> bucket;
+        Entry<K> prev;
+        Entry<K> next;
+
+        Entry(K key, long deadline) {
+            this.key = key;
+            this.deadline = deadline;
+        }
+
+        boolean cancel() {
+            return STATE.compareAndSet(this, ST_PENDING, ST_CANCELLED);
+        }
+
+        boolean expire() {
+            return STATE.compareAndSet(this, ST_PENDING, ST_EXPIRED);
+        }
+    }
+}
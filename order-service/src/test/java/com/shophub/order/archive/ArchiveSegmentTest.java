@@ -0,0 +1,112 @@
+package com.shophub.order.archive;
+
+import com.shophub.common.money.Money;
+import com.shophub.order.model.Order;
+import com.shophub.order.model.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArchiveSegmentTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writtenOrdersAreFoundByIdAndStreamedInIdOrder() throws IOException {
+        List<Order> orders = orders(20);
+        try (ArchiveSegment segment = ArchiveSegment.write(dir.resolve("segment.dat"), 1, orders, 8)) {
+            assertEquals(20, segment.getOrderCount());
+            assertEquals(3, segment.getBlockCount());
+            for (Order order : orders) {
+                assertSameOrder(order, segment.find(order.getId()).orElseThrow());
+            }
+            assertFalse(segment.find(11L).isPresent());
+            assertFalse(segment.mayContain(1_000L));
+
+            List<Order> streamed = segment.orders().toList();
+            assertEquals(orders.size(), streamed.size());
+            for (int i = 0; i < orders.size(); i++) {
+                assertSameOrder(orders.get(i), streamed.get(i));
+            }
+        }
+    }
+
+    @Test
+    void reopenedSegmentReadsTheSameOrders() throws IOException {
+        Path file = dir.resolve("segment.dat");
+        List<Order> orders = orders(9);
+        ArchiveSegment.write(file, 7, orders, 4).close();
+        try (ArchiveSegment segment = ArchiveSegment.open(file, 7)) {
+            assertEquals(7, segment.getSequence());
+            assertEquals(9, segment.getOrderCount());
+            assertSameOrder(orders.get(4), segment.find(orders.get(4).getId()).orElseThrow());
+        }
+    }
+
+    @Test
+    void headerCreatedAtRangeSkipsNonOverlappingQueries() throws IOException {
+        // 创建时间为 1000, 1100, ..., 1900
+        try (ArchiveSegment segment = ArchiveSegment.write(dir.resolve("segment.dat"), 1, orders(10), 8)) {
+            assertFalse(segment.mayContainCreatedBetween(0, 1000));
+            assertFalse(segment.mayContainCreatedBetween(1901, 5000));
+            assertTrue(segment.mayContainCreatedBetween(1900, 1901));
+            assertTrue(segment.mayContainCreatedBetween(500, 1001));
+            assertTrue(segment.mayContainCreatedBetween(Long.MIN_VALUE, Long.MAX_VALUE));
+        }
+    }
+
+    @Test
+    void version2SegmentWithoutTimeRangeIsReadAndNeverSkipped() throws IOException {
+        Path file = dir.resolve("segment.dat");
+        List<Order> orders = orders(10);
+        ArchiveSegment.write(file, 1, orders, 4).close();
+
+        // 版本 3 与版本 2 的块格式相同，只是文件头多了创建时间范围：去掉这 16 字节即得到版本 2 的文件
+        byte[] current = Files.readAllBytes(file);
+        ByteBuffer legacy = ByteBuffer.allocate(current.length - 16);
+        legacy.putInt(ByteBuffer.wrap(current).getInt(0)).putInt(2).put(current, 24, current.length - 24);
+        Files.write(file, legacy.array());
+
+        try (ArchiveSegment segment = ArchiveSegment.open(file, 1)) {
+            assertEquals(10, segment.getOrderCount());
+            assertTrue(segment.mayContainCreatedBetween(0, 1));
+            List<Order> streamed = segment.orders().toList();
+            for (int i = 0; i < orders.size(); i++) {
+                assertSameOrder(orders.get(i), streamed.get(i));
+            }
+        }
+    }
+
+    private static List<Order> orders(int count) {
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long id = 100L + i * 3L;
+            Money total = i % 5 == 0 ? null : Money.ofMinor(1999L * i, i % 2 == 0 ? "USD" : "JPY");
+            OrderStatus status = i % 2 == 0 ? OrderStatus.COMPLETED : OrderStatus.CANCELLED;
+            long createdAt = 1000L + i * 100L;
+            orders.add(new Order(id, 10L + i % 3, List.of(1L, 2L + i), status, total, createdAt, createdAt + 50));
+        }
+        return orders;
+    }
+
+    private static void assertSameOrder(Order expected, Order actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getUserId(), actual.getUserId());
+        assertEquals(expected.getStatus(), actual.getStatus());
+        assertEquals(expected.getTotal(), actual.getTotal());
+        assertEquals(expected.getProductIds(), actual.getProductIds());
+        assertEquals(expected.getCreatedAt(), actual.getCreatedAt());
+        assertEquals(expected.getUpdatedAt(), actual.getUpdatedAt());
+    }
+}
@@ -0,0 +1,63 @@
+package com.shophub.order.client;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GradientLimitTest {
+
+    private static final long RTT = 10_000_000L;
+
+    @Test
+    void limitGrowsWhileLatencyStaysAtTheMinimum() {
+        GradientLimit limit = new GradientLimit(20, 4, 200, 1.5, 0.2, 0.9, 10, 1000);
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(RTT, limit.getLimit(), false);
+        }
+        assertTrue(limit.getLimit() > 20, "limit should grow, was " + limit.getLimit());
+        assertTrue(limit.getLimit() <= 200);
+    }
+
+    @Test
+    void limitShrinksWhenLatencyRises() {
+        GradientLimit limit = new GradientLimit(100, 4, 200, 1.5, 0.2, 0.9, 10, 1000);
+        limit.onSample(RTT, 100, false);
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(RTT * 5, limit.getLimit(), false);
+        }
+        assertTrue(limit.getLimit() < 50, "limit should shrink, was " + limit.getLimit());
+        assertTrue(limit.getLimit() >= 4);
+    }
+
+    @Test
+    void lightLoadDoesNotMoveTheLimit() {
+        GradientLimit limit = new GradientLimit(100, 4, 200, 1.5, 0.2, 0.9, 10, 1000);
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(RTT, 10, false);
+        }
+        assertEquals(100, limit.getLimit());
+    }
+
+    @Test
+    void droppedRequestsBackOffDownToTheMinimum() {
+        GradientLimit limit = new GradientLimit(100, 4, 200, 1.5, 0.2, 0.9, 10, 1000);
+        assertEquals(90, limit.onSample(RTT, 100, true));
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(RTT, 100, true);
+        }
+        assertEquals(4, limit.getLimit());
+    }
+
+    @Test
+    void periodicProbeDropsTheLimitAndRemeasuresTheMinimumRtt() {
+        GradientLimit limit = new GradientLimit(100, 4, 200, 1.5, 0.2, 0.9, 10, 100);
+        limit.onSample(RTT * 3, 1, false);
+        // probeInterval 为 100 时，探测发生在第 100..150 个样本之间，之后的样本重新测量最小 RTT
+        for (int i = 1; i < 160; i++) {
+            limit.onSample(RTT, 1, false);
+        }
+        assertEquals(10, limit.getLimit());
+        assertEquals((double) RTT, limit.getMinRttNanos());
+    }
+}
@@ -0,0 +1,88 @@
+package com.shophub.order.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeterministicSubsetterTest {
+
+    @Test
+    void disabledOrSmallBackendSetReturnsAllBackends() {
+        List<ServiceInstance> backends = backends(6);
+        assertSame(backends, DeterministicSubsetter.disabled().subset(backends));
+        assertSame(backends, new DeterministicSubsetter(3, 6).subset(backends));
+    }
+
+    @Test
+    void clientsInOneRoundGetDisjointSubsetsCoveringAllBackends() {
+        List<ServiceInstance> backends = backends(12);
+        int subsetSize = 3;
+        Set<String> covered = new HashSet<>();
+        // 12 个后端、子集大小 3：每轮 4 个客户端，clientId 4..7 属于同一轮
+        for (long clientId = 4; clientId < 8; clientId++) {
+            List<ServiceInstance> subset = new DeterministicSubsetter(clientId, subsetSize).subset(backends);
+            assertEquals(subsetSize, subset.size());
+            for (ServiceInstance instance : subset) {
+                assertTrue(covered.add(VendorPartitions.instanceKey(instance)), "subsets in one round must not overlap");
+            }
+        }
+        assertEquals(12, covered.size());
+    }
+
+    @Test
+    void subsetDependsOnlyOnClientIdAndBackendSet() {
+        List<ServiceInstance> backends = backends(10);
+        List<ServiceInstance> shuffled = new ArrayList<>(backends);
+        Collections.shuffle(shuffled, new Random(42));
+
+        for (long clientId = 0; clientId < 20; clientId++) {
+            DeterministicSubsetter subsetter = new DeterministicSubsetter(clientId, 3);
+            assertEquals(keys(subsetter.subset(backends)), keys(subsetter.subset(shuffled)));
+        }
+    }
+
+    @Test
+    void denseClientIdsSpreadLoadEvenly() {
+        List<ServiceInstance> backends = backends(20);
+        Map<String, Integer> clientsPerBackend = new HashMap<>();
+        // 20 个后端、子集大小 5：每轮 4 个客户端，40 个连续编号的客户端正好 10 轮
+        for (long clientId = 0; clientId < 40; clientId++) {
+            for (ServiceInstance instance : new DeterministicSubsetter(clientId, 5).subset(backends)) {
+                clientsPerBackend.merge(VendorPartitions.instanceKey(instance), 1, Integer::sum);
+            }
+        }
+        assertEquals(20, clientsPerBackend.size());
+        for (int count : clientsPerBackend.values()) {
+            assertEquals(10, count);
+        }
+    }
+
+    static List<ServiceInstance> backends(int count) {
+        List<ServiceInstance> backends = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            backends.add(new DefaultServiceInstance("product-" + i, "product-service", "10.0.0." + i, 8082, false));
+        }
+        return backends;
+    }
+
+    private static Set<String> keys(List<ServiceInstance> instances) {
+        Set<String> keys = new HashSet<>();
+        for (ServiceInstance instance : instances) {
+            keys.add(VendorPartitions.instanceKey(instance));
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,111 @@
+package com.shophub.order.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VendorPartitionsTest {
+
+    private static final SlowStart NO_SLOW_START = new SlowStart(0L, 1.0);
+
+    @Test
+    void subsetIsTakenFromRegisteredInstancesAndFilteredToAvailableOnes() {
+        List<ServiceInstance> registered = DeterministicSubsetterTest.backends(12);
+        DeterministicSubsetter subsetter = new DeterministicSubsetter(1, 3);
+        Set<String> subset = keys(subsetter.subset(registered));
+
+        // 子集中的一个实例不可用：只剩子集中的另外两个，不会换入子集外的实例
+        List<ServiceInstance> available = new ArrayList<>(registered);
+        String down = subset.iterator().next();
+        available.removeIf(instance -> VendorPartitions.instanceKey(instance).equals(down));
+
+        VendorPartitions partitions = VendorPartitions.build(registered, available, subsetter, NO_SLOW_START);
+        Set<String> used = keys(partitions.partition(null).instances());
+        assertEquals(2, used.size());
+        assertTrue(subset.containsAll(used));
+        assertFalse(used.contains(down));
+    }
+
+    @Test
+    void fallsBackToAllAvailableInstancesWhenTheWholeSubsetIsDown() {
+        List<ServiceInstance> registered = DeterministicSubsetterTest.backends(12);
+        DeterministicSubsetter subsetter = new DeterministicSubsetter(1, 3);
+        Set<String> subset = keys(subsetter.subset(registered));
+
+        List<ServiceInstance> available = new ArrayList<>(registered);
+        available.removeIf(instance -> subset.contains(VendorPartitions.instanceKey(instance)));
+
+        VendorPartitions partitions = VendorPartitions.build(registered, available, subsetter, NO_SLOW_START);
+        assertEquals(keys(available), keys(partitions.partition(null).instances()));
+    }
+
+    @Test
+    void refreshKeepsTheSnapshotWhenNothingChanged() {
+        List<ServiceInstance> registered = DeterministicSubsetterTest.backends(6);
+        VendorPartitions partitions = VendorPartitions.build(registered, registered,
+            DeterministicSubsetter.disabled(), NO_SLOW_START);
+        assertSame(partitions, partitions.refresh(new ArrayList<>(registered), new ArrayList<>(registered)));
+    }
+
+    @Test
+    void smoothWeightedRoundRobinInterleavesByWeight() {
+        List<ServiceInstance> instances = List.of(weighted("a", 5), weighted("b", 1), weighted("c", 1));
+        VendorPartitions.Partition partition = VendorPartitions.build(instances, instances,
+            DeterministicSubsetter.disabled(), NO_SLOW_START).partition(null);
+
+        // 起始位置随机，连续 7 次选择是 a a b a c a a 的某个轮转
+        StringBuilder picks = new StringBuilder();
+        for (int i = 0; i < 7; i++) {
+            picks.append(partition.nextWeighted().getInstanceId());
+        }
+        assertTrue("aabacaa".repeat(2).contains(picks), "unexpected schedule " + picks);
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 700; i++) {
+            counts.merge(partition.nextWeighted().getInstanceId(), 1, Integer::sum);
+        }
+        assertEquals(Map.of("a", 500, "b", 100, "c", 100), counts);
+    }
+
+    @Test
+    void partitionKeepsMetadataWeightAndRampFactorSeparately() {
+        long now = System.currentTimeMillis();
+        ServiceInstance fresh = new DefaultServiceInstance("fresh", "product-service", "10.0.2.1", 8082, false,
+            Map.of(VendorPartitions.WEIGHT_METADATA_KEY, "4", SlowStart.REGISTERED_AT_METADATA_KEY, String.valueOf(now)));
+        ServiceInstance warm = weighted("warm", 4);
+        VendorPartitions.Partition partition = VendorPartitions.build(List.of(fresh, warm), List.of(fresh, warm),
+            DeterministicSubsetter.disabled(), new SlowStart(60_000L, 0.1)).partition(null);
+
+        int freshIndex = partition.instances().indexOf(fresh);
+        int warmIndex = partition.instances().indexOf(warm);
+        assertEquals(4, partition.metadataWeight(freshIndex));
+        assertEquals(4, partition.metadataWeight(warmIndex));
+        assertTrue(partition.rampFactor(freshIndex) < 0.2, "fresh instance must start near min factor");
+        assertEquals(1.0, partition.rampFactor(warmIndex));
+    }
+
+    private static ServiceInstance weighted(String id, int weight) {
+        return new DefaultServiceInstance(id, "product-service", "10.0.1." + id.charAt(0), 8082, false,
+            Map.of(VendorPartitions.WEIGHT_METADATA_KEY, String.valueOf(weight)));
+    }
+
+    static Set<String> keys(List<ServiceInstance> instances) {
+        Set<String> keys = new HashSet<>();
+        for (ServiceInstance instance : instances) {
+            keys.add(VendorPartitions.instanceKey(instance));
+        }
+        return keys;
+    }
+}
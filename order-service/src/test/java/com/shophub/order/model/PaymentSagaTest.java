@@ -0,0 +1,73 @@
+package com.shophub.order.model;
+
+import com.shophub.common.money.Money;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PaymentSagaTest {
+
+    @Test
+    void newSagaIsPendingAndDueImmediately() {
+        PaymentSaga saga = new PaymentSaga(1L, 2L, Money.ofMinor(1999, "USD"));
+        assertEquals(PaymentSagaState.PENDING, saga.getState());
+        assertEquals(0, saga.getAttempts());
+        assertEquals(saga.getCreatedAt(), saga.getNextAttemptAt());
+        assertEquals(Money.ofMinor(1999, "USD"), saga.getTotal());
+    }
+
+    @Test
+    void failedAttemptReturnsToPendingWithTheAttemptCounted() {
+        PaymentSaga saga = new PaymentSaga(1L, 2L, Money.ofMinor(1999, "USD"));
+        saga.startAttempt(1_000L);
+        assertEquals(PaymentSagaState.PAYING, saga.getState());
+        assertEquals(1, saga.getAttempts());
+
+        saga.retryAt(5_000L, "payment-service unavailable", 1_100L);
+        assertEquals(PaymentSagaState.PENDING, saga.getState());
+        assertEquals(1, saga.getAttempts());
+        assertEquals(5_000L, saga.getNextAttemptAt());
+        assertEquals("payment-service unavailable", saga.getLastError());
+        assertEquals(1_100L, saga.getUpdatedAt());
+    }
+
+    @Test
+    void deferredAttemptIsNotCounted() {
+        PaymentSaga saga = new PaymentSaga(1L, 2L, Money.ofMinor(1999, "USD"));
+        saga.startAttempt(1_000L);
+        saga.retryAt(2_000L, "timeout", 1_100L);
+        saga.startAttempt(2_000L);
+        assertEquals(2, saga.getAttempts());
+
+        // 被本地并发限制或熔断拒绝，没有到达支付服务
+        saga.deferAttempt(3_000L, "concurrency limit", 2_001L);
+        assertEquals(PaymentSagaState.PENDING, saga.getState());
+        assertEquals(1, saga.getAttempts());
+        assertEquals(3_000L, saga.getNextAttemptAt());
+    }
+
+    @Test
+    void paidSagaKeepsThePaymentIdAndClearsTheLastError() {
+        PaymentSaga saga = new PaymentSaga(1L, 2L, Money.ofMinor(1999, "USD"));
+        saga.startAttempt(1_000L);
+        saga.retryAt(2_000L, "timeout", 1_100L);
+        saga.startAttempt(2_000L);
+        saga.markPaid("pay-42", 2_100L);
+
+        assertEquals(PaymentSagaState.PAID, saga.getState());
+        assertEquals("pay-42", saga.getPaymentId());
+        assertNull(saga.getLastError());
+        assertEquals(2, saga.getAttempts());
+    }
+
+    @Test
+    void failedSagaKeepsATruncatedReason() {
+        PaymentSaga saga = new PaymentSaga(1L, 2L, Money.ofMinor(1999, "USD"));
+        saga.startAttempt(1_000L);
+        saga.markFailed("x".repeat(800), 1_100L);
+
+        assertEquals(PaymentSagaState.FAILED, saga.getState());
+        assertEquals(500, saga.getLastError().length());
+    }
+}
@@ -0,0 +1,90 @@
+package com.shophub.order.service;
+
+import com.shophub.common.money.Money;
+import com.shophub.order.client.PaymentClient;
+import com.shophub.order.model.Order;
+import com.shophub.order.model.OrderStatus;
+import com.shophub.order.model.PaymentSaga;
+import com.shophub.order.model.PaymentSagaState;
+import com.shophub.order.repository.PaymentSagaRepository;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PaymentSagaOrchestratorTest {
+
+    @Mock
+    private PaymentSagaRepository paymentSagaRepository;
+
+    @Mock
+    private PaymentClient paymentClient;
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @InjectMocks
+    private PaymentSagaOrchestrator orchestrator;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(orchestrator, "batchSize", 20);
+        ReflectionTestUtils.setField(orchestrator, "maxAttempts", 8);
+        ReflectionTestUtils.setField(orchestrator, "initialBackoff", Duration.ofSeconds(2));
+        ReflectionTestUtils.setField(orchestrator, "maxBackoff", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(orchestrator, "payingTimeout", Duration.ofSeconds(60));
+        ReflectionTestUtils.setField(orchestrator, "maxInFlight", 200);
+    }
+
+    @Test
+    void resumedSagaForMissingOrderFailsWithoutCharging() {
+        // 重启前停在 PAYING 的 Saga，订单已不存在
+        PaymentSaga saga = new PaymentSaga(42L, 7L, Money.ofMinor(1999, "USD"));
+        saga.startAttempt(System.currentTimeMillis() - 120_000L);
+        when(paymentSagaRepository.findStalePaying(anyLong())).thenReturn(List.of(saga));
+        when(paymentSagaRepository.findDue(anyLong(), any())).thenReturn(List.of(saga));
+        when(orderService.getOrder(42L)).thenReturn(Optional.empty());
+
+        orchestrator.poll();
+
+        assertEquals(PaymentSagaState.FAILED, saga.getState());
+        assertEquals("订单不存在", saga.getLastError());
+        verify(paymentSagaRepository, atLeastOnce()).save(saga);
+        verifyNoInteractions(paymentClient, circuitBreakerRegistry);
+    }
+
+    @Test
+    void sagaForOrderNoLongerPendingFailsWithoutCharging() {
+        PaymentSaga saga = new PaymentSaga(43L, 7L, Money.ofMinor(500, "USD"));
+        Order cancelled = new Order(43L, 7L, List.of(1L), OrderStatus.CANCELLED, Money.ofMinor(500, "USD"),
+            System.currentTimeMillis());
+        when(paymentSagaRepository.findDue(anyLong(), any())).thenReturn(List.of(saga));
+        when(orderService.getOrder(43L)).thenReturn(Optional.of(cancelled));
+
+        orchestrator.poll();
+
+        assertEquals(PaymentSagaState.FAILED, saga.getState());
+        assertEquals("订单不再等待支付: CANCELLED", saga.getLastError());
+        verifyNoInteractions(paymentClient, circuitBreakerRegistry);
+    }
+}
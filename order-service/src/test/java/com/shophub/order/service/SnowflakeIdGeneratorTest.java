@@ -0,0 +1,68 @@
+package com.shophub.order.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.netflix.eureka.EurekaInstanceConfigBean;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final int THREADS = 4;
+    private static final int IDS_PER_THREAD = 200_000;
+
+    private final SnowflakeIdGenerator generator = new SnowflakeIdGenerator(
+        new StaticListableBeanFactory().getBeanProvider(EurekaInstanceConfigBean.class), "order-service", "8083");
+
+    @Test
+    void idsAreIncreasingAndCarryWorkerIdAndTimestamp() {
+        long before = System.currentTimeMillis();
+        long previous = generator.nextId();
+        for (int i = 0; i < 100_000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous, "ids must be strictly increasing");
+            previous = id;
+        }
+        assertEquals(generator.getWorkerId(), SnowflakeIdGenerator.extractWorkerId(previous));
+        // 同一毫秒序列号用完时逻辑时间会向前借用，允许少量超前
+        long timestamp = SnowflakeIdGenerator.extractTimestamp(previous);
+        assertTrue(timestamp >= before && timestamp <= System.currentTimeMillis() + 1_000,
+            "timestamp " + timestamp + " outside generation window");
+    }
+
+    @Test
+    void concurrentCallersNeverSeeDuplicates() throws Exception {
+        long[][] ids = new long[THREADS][IDS_PER_THREAD];
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CompletableFuture<?>[] tasks = new CompletableFuture<?>[THREADS];
+            for (int t = 0; t < THREADS; t++) {
+                long[] local = ids[t];
+                tasks[t] = CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < local.length; i++) {
+                        local[i] = generator.nextId();
+                    }
+                }, executor);
+            }
+            CompletableFuture.allOf(tasks).get();
+        } finally {
+            executor.shutdown();
+        }
+
+        Set<Long> unique = new HashSet<>(THREADS * IDS_PER_THREAD * 2);
+        for (long[] perThread : ids) {
+            for (int i = 0; i < perThread.length; i++) {
+                assertTrue(i == 0 || perThread[i] > perThread[i - 1], "ids must increase within a thread");
+                unique.add(perThread[i]);
+            }
+        }
+        assertEquals(THREADS * IDS_PER_THREAD, unique.size());
+    }
+}
@@ -0,0 +1,98 @@
+package com.shophub.order.timer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedTimingWheelTest {
+
+    /** 到期的键和到期时间 */
+    private record Expiry(String key, long at) {
+    }
+
+    private final BlockingQueue<Expiry> expired = new LinkedBlockingQueue<>();
+
+    // tick 10ms、8 个槽位：一圈 80ms
+    private final HashedTimingWheel<String> wheel = new HashedTimingWheel<>("test", Duration.ofMillis(10), 8,
+        keys -> {
+            long now = System.currentTimeMillis();
+            for (String key : keys) {
+                expired.add(new Expiry(key, now));
+            }
+        });
+
+    @AfterEach
+    void closeWheel() {
+        wheel.close();
+    }
+
+    @Test
+    void keysExpireInOneBatchNoEarlierThanTheirDeadline() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 50;
+        wheel.schedule("a", deadline);
+        wheel.schedule("b", deadline);
+        assertEquals(2, wheel.size());
+
+        List<Expiry> batch = new ArrayList<>();
+        batch.add(expired.poll(2, TimeUnit.SECONDS));
+        batch.add(expired.poll(2, TimeUnit.SECONDS));
+        assertNotNull(batch.get(0));
+        assertNotNull(batch.get(1));
+        assertEquals(Set.of("a", "b"), Set.of(batch.get(0).key(), batch.get(1).key()));
+        for (Expiry expiry : batch) {
+            assertTrue(expiry.at() >= deadline, "expired " + (deadline - expiry.at()) + " ms early");
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void deadlinesBeyondOneRoundWaitForTheirRound() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 250;
+        wheel.schedule("late", deadline);
+
+        Expiry expiry = expired.poll(2, TimeUnit.SECONDS);
+        assertNotNull(expiry);
+        assertEquals("late", expiry.key());
+        assertTrue(expiry.at() >= deadline, "expired " + (deadline - expiry.at()) + " ms early");
+    }
+
+    @Test
+    void cancelledKeysNeverExpire() throws InterruptedException {
+        wheel.schedule("cancelled", System.currentTimeMillis() + 30);
+        wheel.schedule("kept", System.currentTimeMillis() + 60);
+        assertTrue(wheel.cancel("cancelled"));
+        assertFalse(wheel.cancel("cancelled"));
+
+        Expiry expiry = expired.poll(2, TimeUnit.SECONDS);
+        assertNotNull(expiry);
+        assertEquals("kept", expiry.key());
+        assertNull(expired.poll(100, TimeUnit.MILLISECONDS));
+        assertFalse(wheel.cancel("kept"));
+    }
+
+    @Test
+    void reschedulingAKeyKeepsOnlyTheLastDeadline() throws InterruptedException {
+        wheel.schedule("order", System.currentTimeMillis() + 20);
+        long deadline = System.currentTimeMillis() + 200;
+        wheel.schedule("order", deadline);
+        assertEquals(1, wheel.size());
+
+        Expiry expiry = expired.poll(2, TimeUnit.SECONDS);
+        assertNotNull(expiry);
+        assertTrue(expiry.at() >= deadline, "expired at the superseded deadline");
+        assertNull(expired.poll(100, TimeUnit.MILLISECONDS));
+    }
+}
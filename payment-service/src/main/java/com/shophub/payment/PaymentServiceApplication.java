@@ -1,9 +1,11 @@
 package com.shophub.payment;
 
+import com.shophub.common.warmup.WarmupConfiguration;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Import;
 
 /**
  * Payment Service Application
@@ -12,6 +14,7 @@ import org.springframework.cloud.openfeign.EnableFeignClients;
 @SpringBootApplication
 @EnableDiscoveryClient
 @EnableFeignClients
+@Import(WarmupConfiguration.class)
 public class PaymentServiceApplication {
 
     public static void main(String[] args) {
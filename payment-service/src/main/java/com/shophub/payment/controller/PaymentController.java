@@ -1,5 +1,6 @@
 package com.shophub.payment.controller;
 
+import com.shophub.common.money.Money;
 import com.shophub.payment.entity.Payment;
 import com.shophub.payment.service.PaymentService;
 import com.shophub.payment.service.external.PaypalPaymentGateway;
@@ -49,12 +50,15 @@ public class PaymentController {
     public CompletableFuture<ResponseEntity<Map<String, Object>>> processPayment(
             @RequestBody PaymentRequest request) {
         logger.info("Received payment request for order: {}", request.getOrderId());
+        Money amount = toMoney(request);
+        if (amount == null) {
+            return CompletableFuture.completedFuture(invalidAmount(request));
+        }
         
         return paymentService.processStripePayment(
                 request.getOrderId(),
                 request.getUserId(),
-                request.getAmount(),
-                request.getCurrency()
+                amount
         ).thenApply(payment -> {
             Map<String, Object> response = new HashMap<>();
             response.put("paymentId", payment.getId());
@@ -83,12 +87,15 @@ public class PaymentController {
     public CompletableFuture<ResponseEntity<Map<String, Object>>> processPaypalPayment(
             @RequestBody PaymentRequest request) {
         logger.info("Received PayPal payment request for order: {}", request.getOrderId());
+        Money amount = toMoney(request);
+        if (amount == null) {
+            return CompletableFuture.completedFuture(invalidAmount(request));
+        }
         
         return paymentService.processPaypalPayment(
                 request.getOrderId(),
                 request.getUserId(),
-                request.getAmount(),
-                request.getCurrency()
+                amount
         ).thenApply(payment -> {
             Map<String, Object> response = new HashMap<>();
             response.put("paymentId", payment.getId());
@@ -220,6 +227,30 @@ public class PaymentController {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * 请求金额转换为 Money，金额缺失、货币未知或小数位超过货币最小单位时返回 null
+     */
+    private Money toMoney(PaymentRequest request) {
+        if (request.getAmount() == null || request.getCurrency() == null) {
+            return null;
+        }
+        try {
+            return Money.of(request.getAmount(), request.getCurrency());
+        } catch (ArithmeticException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    private ResponseEntity<Map<String, Object>> invalidAmount(PaymentRequest request) {
+        logger.warn("Rejected payment request for order {}: invalid amount {} {}",
+                request.getOrderId(), request.getAmount(), request.getCurrency());
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", "Invalid payment amount");
+        errorResponse.put("message", "Amount " + request.getAmount() + " is not valid for currency " + request.getCurrency());
+        errorResponse.put("timestamp", LocalDateTime.now());
+        return ResponseEntity.badRequest().body(errorResponse);
+    }
+    
     private String getStatusMessage(Payment payment) {
         switch (payment.getStatus()) {
             case COMPLETED:
@@ -1,5 +1,6 @@
 package com.shophub.payment.entity;
 
+import com.shophub.common.money.Money;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -58,11 +59,12 @@ public class Payment {
         this.currency = "USD";
     }
 
-    public Payment(Long orderId, Long userId, BigDecimal amount, PaymentMethod method, String gateway) {
+    public Payment(Long orderId, Long userId, Money amount, PaymentMethod method, String gateway) {
         this();
         this.orderId = orderId;
         this.userId = userId;
-        this.amount = amount;
+        this.amount = amount.toBigDecimal();
+        this.currency = amount.getCurrency();
         this.method = method;
         this.gateway = gateway;
     }
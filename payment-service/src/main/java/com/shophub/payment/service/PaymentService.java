@@ -1,5 +1,6 @@
 package com.shophub.payment.service;
 
+import com.shophub.common.money.Money;
 import com.shophub.payment.entity.Payment;
 import com.shophub.payment.repository.PaymentRepository;
 import com.shophub.payment.service.external.PaypalPaymentGateway;
@@ -13,7 +14,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -44,7 +44,7 @@ public class PaymentService {
     @Retry(name = "stripe-payment")
     @TimeLimiter(name = "stripe-payment")
     @Bulkhead(name = "stripe-payment", type = Bulkhead.Type.THREADPOOL)
-    public CompletableFuture<Payment> processStripePayment(Long orderId, Long userId, BigDecimal amount, String currency) {
+    public CompletableFuture<Payment> processStripePayment(Long orderId, Long userId, Money amount) {
         logger.info("Submitting Stripe payment for order: {}, amount: {}", orderId, amount);
         return CompletableFuture.supplyAsync(() -> {
             logger.info("Processing Stripe payment for order: {}, amount: {}", orderId, amount);
@@ -56,7 +56,7 @@ public class PaymentService {
             
             try {
                 // 调用Stripe API
-                StripePaymentGateway.PaymentResult result = stripeGateway.processPayment(orderId, amount, currency);
+                StripePaymentGateway.PaymentResult result = stripeGateway.processPayment(orderId, amount);
                 
                 if (result.isSuccess()) {
                     payment.setStatus(Payment.PaymentStatus.COMPLETED);
@@ -83,9 +83,9 @@ public class PaymentService {
      * Stripe支付降级方法 - 自动切换到PayPal
      */
     public CompletableFuture<Payment> fallbackStripePayment(Long orderId, Long userId, 
-                                                           BigDecimal amount, String currency, Exception ex) {
+                                                           Money amount, Exception ex) {
         logger.warn("Stripe payment failed, falling back to PayPal. Error: {}", ex.getMessage());
-        return processPaypalPayment(orderId, userId, amount, currency);
+        return processPaypalPayment(orderId, userId, amount);
     }
     
     /**
@@ -95,7 +95,7 @@ public class PaymentService {
     @Retry(name = "paypal-payment")
     @TimeLimiter(name = "paypal-payment")
     @Bulkhead(name = "paypal-payment", type = Bulkhead.Type.THREADPOOL)
-    public CompletableFuture<Payment> processPaypalPayment(Long orderId, Long userId, BigDecimal amount, String currency) {
+    public CompletableFuture<Payment> processPaypalPayment(Long orderId, Long userId, Money amount) {
         logger.info("Submitting PayPal payment for order: {}, amount: {}", orderId, amount);
         return CompletableFuture.supplyAsync(() -> {
             logger.info("Processing PayPal payment for order: {}, amount: {}", orderId, amount);
@@ -107,7 +107,7 @@ public class PaymentService {
             
             try {
                 // 调用PayPal API
-                PaypalPaymentGateway.PaymentResult result = paypalGateway.processPayment(orderId, amount, currency);
+                PaypalPaymentGateway.PaymentResult result = paypalGateway.processPayment(orderId, amount);
                 
                 if (result.isSuccess()) {
                     payment.setStatus(Payment.PaymentStatus.COMPLETED);
@@ -134,7 +134,7 @@ public class PaymentService {
      * PayPal支付最终降级方法
      */
     public CompletableFuture<Payment> fallbackPaypalPayment(Long orderId, Long userId, 
-                                                           BigDecimal amount, String currency, Exception ex) {
+                                                           Money amount, Exception ex) {
         logger.error("All payment gateways failed. Order: {}, Error: {}", orderId, ex.getMessage());
         
         return CompletableFuture.supplyAsync(() -> {
@@ -1,8 +1,8 @@
 package com.shophub.payment.service.external;
 
+import com.shophub.common.money.Money;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
 import java.util.Random;
 import java.util.UUID;
 
@@ -19,7 +19,7 @@ public class StripePaymentGateway {
     /**
      * 处理支付 - 模拟网络延迟和故障
      */
-    public PaymentResult processPayment(Long orderId, BigDecimal amount, String currency) {
+    public PaymentResult processPayment(Long orderId, Money amount) {
         callCount++;
         
         // 模拟网络延迟
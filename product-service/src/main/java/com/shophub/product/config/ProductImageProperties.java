@@ -0,0 +1,66 @@
+package com.shophub.product.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 商品图片配置
+ * 绑定 product.catalog 下的图片相关配置（allowed-formats 为列表，需通过属性绑定读取）
+ */
+@Component
+@ConfigurationProperties(prefix = "product.catalog")
+public class ProductImageProperties {
+
+    /** 是否允许上传商品图片 */
+    private boolean imageUpload = false;
+
+    /** 单张图片大小上限 */
+    private DataSize maxImageSize = DataSize.ofMegabytes(5);
+
+    /** 允许的图片格式（按文件头识别，也是存储文件的扩展名） */
+    private List<String> allowedFormats = new ArrayList<>(List.of("jpg", "png", "webp"));
+
+    /** 图片存储目录 */
+    private String imageDir = "./data/product-images";
+
+    /** 缩略图最长边像素 */
+    private int thumbnailSize = 200;
+
+    /** 缩略图生成线程数 */
+    private int thumbnailThreads = 2;
+
+    /** 缩略图任务队列容量 */
+    private int thumbnailQueueCapacity = 100;
+
+    /** 图片响应的浏览器缓存时间 */
+    private Duration imageCacheMaxAge = Duration.ofDays(30);
+
+    public boolean isImageUpload() { return imageUpload; }
+    public void setImageUpload(boolean imageUpload) { this.imageUpload = imageUpload; }
+
+    public DataSize getMaxImageSize() { return maxImageSize; }
+    public void setMaxImageSize(DataSize maxImageSize) { this.maxImageSize = maxImageSize; }
+
+    public List<String> getAllowedFormats() { return allowedFormats; }
+    public void setAllowedFormats(List<String> allowedFormats) { this.allowedFormats = allowedFormats; }
+
+    public String getImageDir() { return imageDir; }
+    public void setImageDir(String imageDir) { this.imageDir = imageDir; }
+
+    public int getThumbnailSize() { return thumbnailSize; }
+    public void setThumbnailSize(int thumbnailSize) { this.thumbnailSize = thumbnailSize; }
+
+    public int getThumbnailThreads() { return thumbnailThreads; }
+    public void setThumbnailThreads(int thumbnailThreads) { this.thumbnailThreads = thumbnailThreads; }
+
+    public int getThumbnailQueueCapacity() { return thumbnailQueueCapacity; }
+    public void setThumbnailQueueCapacity(int thumbnailQueueCapacity) { this.thumbnailQueueCapacity = thumbnailQueueCapacity; }
+
+    public Duration getImageCacheMaxAge() { return imageCacheMaxAge; }
+    public void setImageCacheMaxAge(Duration imageCacheMaxAge) { this.imageCacheMaxAge = imageCacheMaxAge; }
+}
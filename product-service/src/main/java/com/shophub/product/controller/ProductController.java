@@ -1,11 +1,12 @@
 package com.shophub.product.controller;
 
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
+import com.shophub.product.service.ProductCatalog;
+import com.shophub.product.service.ProductRatingService;
 import com.shophub.product.service.ProductRecommendationService;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
@@ -23,6 +24,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -68,6 +71,12 @@ public class ProductController {
     @Autowired
     private ProductRecommendationService recommendationService;
     
+    @Autowired
+    private ProductRatingService ratingService;
+    
+    @Autowired
+    private ProductCatalog productCatalog;
+    
     @Autowired
     private CircuitBreakerRegistry circuitBreakerRegistry;
     
@@ -86,14 +95,6 @@ public class ProductController {
                 .register(meterRegistry);
     }
     
-    // 模拟产品数据 (实际项目中应该连接数据库)
-    private static final List<Map<String, Object>> MOCK_PRODUCTS = Arrays.asList(
-        createProduct(1L, "iPhone 15 Pro", "Apple", 8999.00, true),
-        createProduct(2L, "MacBook Pro M3", "Apple", 15999.00, true),
-        createProduct(3L, "Samsung Galaxy S24", "Samsung", 6999.00, true),
-        createProduct(4L, "ThinkPad X1 Carbon", "Lenovo", 12999.00, false),
-        createProduct(5L, "iPad Air", "Apple", 4299.00, true)
-    );
     
     /**
      * 检查产品是否存在 (用于服务间通信)
@@ -106,8 +107,7 @@ public class ProductController {
         requestCounter.increment();
         logger.info("Checking if product exists: {}", productId);
         
-        boolean exists = MOCK_PRODUCTS.stream()
-            .anyMatch(product -> productId.equals(product.get("id")));
+        boolean exists = productCatalog.exists(productId);
         
         Map<String, Object> response = new HashMap<>();
         response.put("exists", exists);
@@ -125,13 +125,13 @@ public class ProductController {
      */
     @GetMapping("/{productId}")
     public ResponseEntity<?> getProductDetails(@PathVariable Long productId) {
-        Map<String, Object> product = MOCK_PRODUCTS.stream()
-            .filter(p -> productId.equals(p.get("id")))
-            .findFirst()
-            .orElse(null);
+        Map<String, Object> product = productCatalog.findProduct(productId);
         
         if (product != null) {
             Map<String, Object> enrichedProduct = new HashMap<>(product);
+            ProductRatingService.ProductRating rating = ratingService.getRating(productId);
+            enrichedProduct.put("rating", rating != null ? rating.averageRating() : null);
+            enrichedProduct.put("reviewCount", rating != null ? rating.reviewCount() : 0L);
             enrichedProduct.put("serviceInstance", serviceName + ":" + serverPort);
             enrichedProduct.put("responseTime", System.currentTimeMillis());
             return ResponseEntity.ok(enrichedProduct);
@@ -149,7 +149,7 @@ public class ProductController {
      */
     @GetMapping
     public ResponseEntity<List<Map<String, Object>>> getAllProducts() {
-        return ResponseEntity.ok(MOCK_PRODUCTS);
+        return ResponseEntity.ok(productCatalog.getProducts());
     }
     
     /**
@@ -158,7 +158,7 @@ public class ProductController {
      */
     @GetMapping("/available")
     public ResponseEntity<List<Map<String, Object>>> getAvailableProducts() {
-        List<Map<String, Object>> availableProducts = MOCK_PRODUCTS.stream()
+        List<Map<String, Object>> availableProducts = productCatalog.getProducts().stream()
             .filter(product -> (Boolean) product.get("available"))
             .toList();
         
@@ -171,7 +171,7 @@ public class ProductController {
      */
     @GetMapping("/search")
     public ResponseEntity<List<Map<String, Object>>> searchProducts(@RequestParam String keyword) {
-        List<Map<String, Object>> searchResults = MOCK_PRODUCTS.stream()
+        List<Map<String, Object>> searchResults = productCatalog.getProducts().stream()
             .filter(product -> {
                 String name = (String) product.get("name");
                 String brand = (String) product.get("brand");
@@ -183,6 +183,75 @@ public class ProductController {
         return ResponseEntity.ok(searchResults);
     }
     
+    /**
+     * 提交商品评价，只更新评分累加器
+     * POST /api/products/{productId}/reviews
+     */
+    @PostMapping("/{productId}/reviews")
+    public ResponseEntity<Map<String, Object>> addReview(@PathVariable Long productId,
+                                                         @RequestBody Map<String, Object> reviewRequest) {
+        Map<String, Object> response = new HashMap<>();
+        
+        if (!productCatalog.exists(productId)) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        Object rating = reviewRequest.get("rating");
+        if (!(rating instanceof Number)) {
+            response.put("error", "缺少评分字段 rating");
+            return ResponseEntity.badRequest().body(response);
+        }
+        
+        try {
+            ratingService.addReview(productId, ((Number) rating).doubleValue());
+        } catch (IllegalArgumentException e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+        
+        response.put("productId", productId);
+        response.put("rating", rating);
+        response.put("message", "评价已提交，评分将在下一次快照时更新");
+        response.put("serviceInstance", serviceName + ":" + serverPort);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 获取商品评分快照
+     * GET /api/products/{productId}/rating
+     */
+    @GetMapping("/{productId}/rating")
+    public ResponseEntity<Map<String, Object>> getProductRating(@PathVariable Long productId) {
+        ProductRatingService.ProductRating rating = ratingService.getRating(productId);
+        if (rating == null) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("productId", productId);
+        response.put("averageRating", rating.averageRating());
+        response.put("reviewCount", rating.reviewCount());
+        response.put("snapshotAt", ratingService.getSnapshotTimestamp());
+        response.put("serviceInstance", serviceName + ":" + serverPort);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 按评分排序的商品列表
+     * GET /api/products/top-rated?limit=10
+     */
+    @GetMapping("/top-rated")
+    public ResponseEntity<Map<String, Object>> getTopRatedProducts(@RequestParam(defaultValue = "10") int limit) {
+        List<ProductRatingService.ProductRating> topRated = ratingService.getTopRated(Math.min(limit, maxSearchResults));
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("products", topRated);
+        response.put("count", topRated.size());
+        response.put("snapshotAt", ratingService.getSnapshotTimestamp());
+        response.put("serviceInstance", serviceName + ":" + serverPort);
+        return ResponseEntity.ok(response);
+    }
+    
     /**
      * 健康检查
      * GET /api/products/health
@@ -198,7 +267,7 @@ public class ProductController {
         health.put("status", "UP");
         health.put("service", serviceName);
         health.put("port", serverPort);
-        health.put("productsCount", MOCK_PRODUCTS.size());
+        health.put("productsCount", productCatalog.getProducts().size());
         health.put("timestamp", System.currentTimeMillis());
         health.put("message", "Product Service 实例运行正常，端口: " + serverPort);
         
@@ -264,7 +333,7 @@ public class ProductController {
                 response.put("fallback", "使用默认推荐");
                 
                 // 降级到简单推荐
-                List<Map<String, Object>> fallbackRecommendations = MOCK_PRODUCTS.stream()
+                List<Map<String, Object>> fallbackRecommendations = productCatalog.getProducts().stream()
                     .filter(product -> (Boolean) product.get("available"))
                     .limit(3)
                     .toList();
@@ -381,10 +450,7 @@ public class ProductController {
         Map<String, Object> response = new HashMap<>();
         
         // 检查产品是否存在
-        boolean productExists = MOCK_PRODUCTS.stream()
-            .anyMatch(product -> productId.equals(product.get("id")));
-        
-        if (!productExists) {
+        if (!productCatalog.exists(productId)) {
             response.put("error", "产品不存在");
             return ResponseEntity.notFound().build();
         }
@@ -417,18 +483,4 @@ public class ProductController {
         info.put("numberOfSlowCalls", circuitBreaker.getMetrics().getNumberOfSlowCalls());
         return info;
     }
-    
-    /**
-     * 创建模拟产品对象
-     */
-    private static Map<String, Object> createProduct(Long id, String name, String brand, Double price, Boolean available) {
-        Map<String, Object> product = new HashMap<>();
-        product.put("id", id);
-        product.put("name", name);
-        product.put("brand", brand);
-        product.put("price", price);
-        product.put("available", available);
-        product.put("createdAt", System.currentTimeMillis());
-        return product;
-    }
 } 
\ No newline at end of file
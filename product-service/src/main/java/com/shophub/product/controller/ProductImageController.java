@@ -0,0 +1,166 @@
+package com.shophub.product.controller;
+
+import com.shophub.product.service.ProductCatalog;
+import com.shophub.product.service.ProductImageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 商品图片控制器
+ *
+ * 上传的图片直接落盘；读取时优先使用 Tomcat sendfile，
+ * 否则使用 FileChannel.transferTo 把文件写入响应，图片内容不经过堆内缓冲。
+ */
+@RestController
+@RequestMapping("/api/products")
+@CrossOrigin(origins = "*")
+public class ProductImageController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImageController.class);
+
+    // Tomcat sendfile 请求属性
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Value("${server.port}")
+    private String serverPort;
+
+    @Value("${spring.application.name}")
+    private String serviceName;
+
+    @Autowired
+    private ProductImageService imageService;
+
+    @Autowired
+    private ProductCatalog productCatalog;
+
+    /**
+     * 上传商品图片
+     * POST /api/products/{productId}/images (multipart, 字段名 file)
+     */
+    @PostMapping("/{productId}/images")
+    public ResponseEntity<Map<String, Object>> uploadImage(@PathVariable Long productId,
+                                                           @RequestParam("file") MultipartFile file) {
+        Map<String, Object> response = new HashMap<>();
+        if (!productCatalog.exists(productId)) {
+            response.put("error", "产品不存在");
+            return ResponseEntity.status(404).body(response);
+        }
+        try {
+            String imageId = imageService.storeImage(productId, file);
+            response.put("productId", productId);
+            response.put("imageId", imageId);
+            response.put("url", "/api/products/" + productId + "/images/" + imageId);
+            response.put("thumbnailUrl", "/api/products/" + productId + "/images/" + imageId + "?thumbnail=true");
+            response.put("size", file.getSize());
+            response.put("serviceInstance", serviceName + ":" + serverPort);
+            response.put("message", "图片上传成功，缩略图将在后台生成");
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (IllegalStateException e) {
+            response.put("error", e.getMessage());
+            return ResponseEntity.status(403).body(response);
+        } catch (IOException e) {
+            logger.error("Failed to store image for product {}", productId, e);
+            response.put("error", "图片保存失败: " + e.getMessage());
+            return ResponseEntity.status(500).body(response);
+        }
+    }
+
+    /**
+     * 获取商品的图片列表
+     * GET /api/products/{productId}/images
+     */
+    @GetMapping("/{productId}/images")
+    public ResponseEntity<Map<String, Object>> listImages(@PathVariable Long productId) throws IOException {
+        List<String> imageIds = imageService.listImages(productId);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("productId", productId);
+        response.put("images", imageIds);
+        response.put("count", imageIds.size());
+        response.put("serviceInstance", serviceName + ":" + serverPort);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * 读取商品图片，图片ID不可变，因此原图和缩略图可以长期缓存；
+     * 缩略图尚未生成时回退到原图，此时要求浏览器每次重新验证，缩略图生成后 ETag 改变即可取到缩略图
+     * GET /api/products/{productId}/images/{imageId}?thumbnail=false
+     */
+    @GetMapping("/{productId}/images/{imageId}")
+    public void getImage(@PathVariable Long productId,
+                         @PathVariable String imageId,
+                         @RequestParam(defaultValue = "false") boolean thumbnail,
+                         HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        Path image = imageService.findImage(productId, imageId, thumbnail);
+        if (image == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String etag = "\"" + image.getFileName() + "\"";
+        response.setHeader(HttpHeaders.ETAG, etag);
+        if (thumbnail && !imageService.isThumbnail(image)) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        } else {
+            response.setHeader(HttpHeaders.CACHE_CONTROL,
+                "public, max-age=" + imageService.getProperties().getImageCacheMaxAge().toSeconds() + ", immutable");
+        }
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long length = Files.size(image);
+        response.setContentType(imageService.contentType(image));
+        response.setContentLengthLong(length);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, Files.getLastModifiedTime(image).toMillis());
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // 由 Tomcat 在响应提交后通过 sendfile 直接把文件写入 socket
+            request.setAttribute(SENDFILE_FILENAME, image.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, length);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(image, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < length) {
+                position += channel.transferTo(position, length - position, out);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.shophub.product.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 商品目录
+ *
+ * 商品接口对外提供的模拟商品数据 (实际项目中应该连接数据库)，
+ * 图片上传、评分等功能都以这里的商品为准。
+ */
+@Component
+public class ProductCatalog {
+
+    private static final List<Map<String, Object>> MOCK_PRODUCTS = List.of(
+        createProduct(1L, "iPhone 15 Pro", "Apple", 8999.00, true),
+        createProduct(2L, "MacBook Pro M3", "Apple", 15999.00, true),
+        createProduct(3L, "Samsung Galaxy S24", "Samsung", 6999.00, true),
+        createProduct(4L, "ThinkPad X1 Carbon", "Lenovo", 12999.00, false),
+        createProduct(5L, "iPad Air", "Apple", 4299.00, true)
+    );
+
+    /**
+     * 全部商品（只读）
+     */
+    public List<Map<String, Object>> getProducts() {
+        return MOCK_PRODUCTS;
+    }
+
+    /**
+     * 按ID查找商品，不存在时返回 null
+     */
+    public Map<String, Object> findProduct(Long productId) {
+        return MOCK_PRODUCTS.stream()
+            .filter(product -> productId.equals(product.get("id")))
+            .findFirst()
+            .orElse(null);
+    }
+
+    public boolean exists(Long productId) {
+        return findProduct(productId) != null;
+    }
+
+    /**
+     * 创建模拟产品对象
+     */
+    private static Map<String, Object> createProduct(Long id, String name, String brand, Double price, Boolean available) {
+        Map<String, Object> product = new HashMap<>();
+        product.put("id", id);
+        product.put("name", name);
+        product.put("brand", brand);
+        product.put("price", price);
+        product.put("available", available);
+        product.put("createdAt", System.currentTimeMillis());
+        return product;
+    }
+}
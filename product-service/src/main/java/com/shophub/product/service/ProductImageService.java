@@ -0,0 +1,267 @@
+package com.shophub.product.service;
+
+import com.shophub.product.config.ProductImageProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 商品图片存储服务
+ *
+ * 上传：file-size-threshold=0 时 multipart 文件由容器直接落盘，这里通过 Part.write 把临时文件移动到图片目录，不在堆上缓冲图片内容；
+ * 图片格式按文件头（magic bytes）识别，不信任客户端的文件名，不是允许格式的图片时拒绝；
+ * 缩略图：在有界线程池中异步生成，队列满时跳过，读取缩略图时回退到原图。
+ */
+@Service
+public class ProductImageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImageService.class);
+
+    private static final String THUMBNAIL_SUFFIX = "-thumb";
+    private static final Pattern IMAGE_ID_PATTERN = Pattern.compile("[0-9a-f]{32}");
+
+    @Autowired
+    private ProductImageProperties properties;
+
+    private Path imageRoot;
+    private ThreadPoolExecutor thumbnailExecutor;
+
+    @PostConstruct
+    public void init() throws IOException {
+        imageRoot = Paths.get(properties.getImageDir()).toAbsolutePath().normalize();
+        Files.createDirectories(imageRoot);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        thumbnailExecutor = new ThreadPoolExecutor(
+            properties.getThumbnailThreads(), properties.getThumbnailThreads(),
+            60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(properties.getThumbnailQueueCapacity()),
+            runnable -> {
+                Thread thread = new Thread(runnable, "product-thumbnail-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+
+        logger.info("Product images stored in {}", imageRoot);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        thumbnailExecutor.shutdown();
+    }
+
+    /**
+     * 保存上传的图片并提交缩略图任务，返回图片ID
+     */
+    public String storeImage(Long productId, MultipartFile file) throws IOException {
+        if (!properties.isImageUpload()) {
+            throw new IllegalStateException("商品图片上传功能已关闭");
+        }
+        if (file.isEmpty()) {
+            throw new IllegalArgumentException("图片文件为空");
+        }
+        if (file.getSize() > properties.getMaxImageSize().toBytes()) {
+            throw new IllegalArgumentException("图片大小超过限制: " + properties.getMaxImageSize());
+        }
+        String format = detectFormat(file);
+
+        Path productDir = imageRoot.resolve(String.valueOf(productId));
+        Files.createDirectories(productDir);
+
+        String imageId = UUID.randomUUID().toString().replace("-", "");
+        Path target = productDir.resolve(imageId + "." + format);
+        // transferTo(File) 交给 Part.write：Tomcat 对已落盘的临时文件做重命名（跨文件系统时复制），
+        // 低于 file-size-threshold 保存在内存中的部分直接写出；transferTo(Path) 则总是通过流复制
+        file.transferTo(target.toFile());
+
+        submitThumbnail(target, productDir.resolve(imageId + THUMBNAIL_SUFFIX + "." + format), format);
+        logger.info("Stored image {} for product {} ({} bytes)", imageId, productId, file.getSize());
+        return imageId;
+    }
+
+    /**
+     * 查找图片文件，thumbnail 为 true 时优先返回缩略图，缩略图尚未生成则返回原图
+     */
+    public Path findImage(Long productId, String imageId, boolean thumbnail) {
+        if (!IMAGE_ID_PATTERN.matcher(imageId).matches()) {
+            return null;
+        }
+        Path productDir = imageRoot.resolve(String.valueOf(productId));
+        for (String format : properties.getAllowedFormats()) {
+            String extension = format.toLowerCase(Locale.ROOT);
+            if (thumbnail) {
+                Path thumb = productDir.resolve(imageId + THUMBNAIL_SUFFIX + "." + extension);
+                if (Files.isRegularFile(thumb)) {
+                    return thumb;
+                }
+            }
+            Path original = productDir.resolve(imageId + "." + extension);
+            if (Files.isRegularFile(original)) {
+                return original;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 是否为生成的缩略图文件
+     */
+    public boolean isThumbnail(Path image) {
+        String fileName = image.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        return (dot < 0 ? fileName : fileName.substring(0, dot)).endsWith(THUMBNAIL_SUFFIX);
+    }
+
+    /**
+     * 列出商品的所有图片ID
+     */
+    public List<String> listImages(Long productId) throws IOException {
+        Path productDir = imageRoot.resolve(String.valueOf(productId));
+        if (!Files.isDirectory(productDir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(productDir)) {
+            return files.map(path -> path.getFileName().toString())
+                .filter(name -> !name.contains(THUMBNAIL_SUFFIX))
+                .map(name -> name.substring(0, name.lastIndexOf('.')))
+                .sorted()
+                .toList();
+        }
+    }
+
+    /**
+     * 根据文件扩展名返回 Content-Type
+     */
+    public String contentType(Path image) {
+        String name = image.getFileName().toString();
+        String extension = name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        return switch (extension) {
+            case "jpg", "jpeg" -> "image/jpeg";
+            case "png" -> "image/png";
+            case "webp" -> "image/webp";
+            case "gif" -> "image/gif";
+            default -> "application/octet-stream";
+        };
+    }
+
+    public ProductImageProperties getProperties() {
+        return properties;
+    }
+
+    /**
+     * 读取文件头识别图片格式，只读取前 12 个字节；无法识别或不是允许的格式时拒绝
+     */
+    private String detectFormat(MultipartFile file) throws IOException {
+        byte[] header;
+        try (InputStream in = file.getInputStream()) {
+            header = in.readNBytes(12);
+        }
+        String format = formatOf(header);
+        if (format == null) {
+            throw new IllegalArgumentException("文件内容不是可识别的图片");
+        }
+        for (String allowed : properties.getAllowedFormats()) {
+            if (allowed.equalsIgnoreCase(format)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("不支持的图片格式: " + format + "，允许的格式: " + properties.getAllowedFormats());
+    }
+
+    private static String formatOf(byte[] header) {
+        if (startsWith(header, 0, 0xFF, 0xD8, 0xFF)) {
+            return "jpg";
+        }
+        if (startsWith(header, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "png";
+        }
+        if (startsWith(header, 0, 'G', 'I', 'F', '8') && (startsWith(header, 4, '7', 'a') || startsWith(header, 4, '9', 'a'))) {
+            return "gif";
+        }
+        if (startsWith(header, 0, 'R', 'I', 'F', 'F') && startsWith(header, 8, 'W', 'E', 'B', 'P')) {
+            return "webp";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] data, int offset, int... expected) {
+        if (data.length < offset + expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if ((data[offset + i] & 0xFF) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void submitThumbnail(Path source, Path target, String format) {
+        try {
+            thumbnailExecutor.execute(() -> generateThumbnail(source, target, format));
+        } catch (RejectedExecutionException e) {
+            logger.warn("Thumbnail queue full, skipping thumbnail for {}", source.getFileName());
+        }
+    }
+
+    private void generateThumbnail(Path source, Path target, String format) {
+        try {
+            BufferedImage image = ImageIO.read(source.toFile());
+            if (image == null) {
+                // ImageIO 默认不支持 webp 等格式，此时直接使用原图
+                logger.debug("No ImageIO reader for {}, thumbnail skipped", source.getFileName());
+                return;
+            }
+
+            int size = properties.getThumbnailSize();
+            double scale = Math.min(1.0, (double) size / Math.max(image.getWidth(), image.getHeight()));
+            int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+            int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+            int type = "png".equals(format) ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+            BufferedImage thumbnail = new BufferedImage(width, height, type);
+            Graphics2D graphics = thumbnail.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(image, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+
+            // 先写临时文件再原子替换，避免读到写了一半的缩略图
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            ImageIO.write(thumbnail, "jpg".equals(format) ? "jpeg" : format, temp.toFile());
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to generate thumbnail for {}: {}", source.getFileName(), e.getMessage());
+        } catch (RuntimeException e) {
+            logger.warn("Unexpected error generating thumbnail for {}", source.getFileName(), e);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.shophub.product.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 商品评分聚合服务
+ *
+ * 评价写入时只更新每个商品的无锁累加器（评分总和与评价数），
+ * 定时任务把累加器汇总成不可变快照，读路径（商品详情、按评分排序的列表）只读取快照，
+ * 从不在查询时聚合原始评价。
+ */
+@Service
+public class ProductRatingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductRatingService.class);
+
+    /** 评分以百分之一星为单位累加，避免浮点累加误差 */
+    private static final int RATING_SCALE = 100;
+
+    public static final double MIN_RATING = 1.0;
+    public static final double MAX_RATING = 5.0;
+
+    @Autowired
+    private ProductCatalog productCatalog;
+
+    @Autowired
+    private ProductRecommendationService recommendationService;
+
+    private final Map<Long, RatingAccumulator> accumulators = new ConcurrentHashMap<>();
+
+    private volatile RatingSnapshot snapshot = RatingSnapshot.EMPTY;
+
+    /**
+     * 为商品接口提供的每个商品（ProductCatalog）初始化累加器，
+     * 初始评分和评价数取推荐目录中同一ID的商品，推荐目录中没有的商品从零条评价开始
+     */
+    @PostConstruct
+    public void init() {
+        Map<Long, Map<String, Object>> seeds = new HashMap<>();
+        for (Map<String, Object> product : recommendationService.getCatalogProducts()) {
+            seeds.put((Long) product.get("id"), product);
+        }
+        for (Map<String, Object> product : productCatalog.getProducts()) {
+            Long productId = (Long) product.get("id");
+            Map<String, Object> seed = seeds.get(productId);
+            if (seed == null) {
+                accumulatorFor(productId);
+                continue;
+            }
+            double rating = (Double) seed.get("rating");
+            int reviewCount = (Integer) seed.get("reviewCount");
+
+            RatingAccumulator accumulator = accumulatorFor(productId);
+            accumulator.ratingSum.add(Math.round(rating * RATING_SCALE) * (long) reviewCount);
+            accumulator.reviewCount.add(reviewCount);
+        }
+        refreshSnapshot();
+        logger.info("Initialized rating accumulators for {} products", accumulators.size());
+    }
+
+    /**
+     * 写入一条评价，只做两次 LongAdder 累加
+     */
+    public void addReview(Long productId, double rating) {
+        if (rating < MIN_RATING || rating > MAX_RATING) {
+            throw new IllegalArgumentException("评分必须在 " + MIN_RATING + " 到 " + MAX_RATING + " 之间");
+        }
+        RatingAccumulator accumulator = accumulatorFor(productId);
+        accumulator.ratingSum.add(Math.round(rating * RATING_SCALE));
+        accumulator.reviewCount.increment();
+    }
+
+    /**
+     * 获取商品的评分快照，商品没有评价时返回 null
+     */
+    public ProductRating getRating(Long productId) {
+        return snapshot.byProduct.get(productId);
+    }
+
+    /**
+     * 按平均评分降序返回评分最高的商品
+     */
+    public List<ProductRating> getTopRated(int limit) {
+        List<ProductRating> sorted = snapshot.sortedByRating;
+        return sorted.subList(0, Math.min(Math.max(limit, 0), sorted.size()));
+    }
+
+    /**
+     * 当前快照的生成时间
+     */
+    public long getSnapshotTimestamp() {
+        return snapshot.createdAt;
+    }
+
+    /**
+     * 定期把累加器汇总为新快照
+     * 累加器的两个字段分别读取，并发写入时平均分可能有一条评价的偏差，下一次快照即会修正
+     */
+    @Scheduled(fixedDelayString = "${product.reviews.snapshot-interval-ms:5000}")
+    public void refreshSnapshot() {
+        Map<Long, ProductRating> byProduct = new HashMap<>();
+        for (Map.Entry<Long, RatingAccumulator> entry : accumulators.entrySet()) {
+            long count = entry.getValue().reviewCount.sum();
+            if (count == 0) {
+                continue;
+            }
+            long sum = entry.getValue().ratingSum.sum();
+            double average = Math.round((double) sum / count) / (double) RATING_SCALE;
+            byProduct.put(entry.getKey(), new ProductRating(entry.getKey(), average, count));
+        }
+
+        List<ProductRating> sorted = new ArrayList<>(byProduct.values());
+        sorted.sort(Comparator.comparingDouble(ProductRating::averageRating).reversed()
+            .thenComparing(Comparator.comparingLong(ProductRating::reviewCount).reversed()));
+
+        snapshot = new RatingSnapshot(Collections.unmodifiableMap(byProduct),
+            Collections.unmodifiableList(sorted), System.currentTimeMillis());
+    }
+
+    private RatingAccumulator accumulatorFor(Long productId) {
+        return accumulators.computeIfAbsent(productId, id -> new RatingAccumulator());
+    }
+
+    /**
+     * 单个商品的评分累加器
+     */
+    private static final class RatingAccumulator {
+        private final LongAdder ratingSum = new LongAdder();
+        private final LongAdder reviewCount = new LongAdder();
+    }
+
+    /**
+     * 不可变的评分快照
+     */
+    private static final class RatingSnapshot {
+        private static final RatingSnapshot EMPTY = new RatingSnapshot(Map.of(), List.of(), 0L);
+
+        private final Map<Long, ProductRating> byProduct;
+        private final List<ProductRating> sortedByRating;
+        private final long createdAt;
+
+        private RatingSnapshot(Map<Long, ProductRating> byProduct, List<ProductRating> sortedByRating, long createdAt) {
+            this.byProduct = byProduct;
+            this.sortedByRating = sortedByRating;
+            this.createdAt = createdAt;
+        }
+    }
+
+    /**
+     * 商品评分
+     */
+    public record ProductRating(Long productId, double averageRating, long reviewCount) {
+    }
+}
@@ -194,6 +194,13 @@ public class ProductRecommendationService {
         return stats;
     }
     
+    /**
+     * 获取推荐商品目录（只读）
+     */
+    public List<Map<String, Object>> getCatalogProducts() {
+        return Collections.unmodifiableList(ALL_PRODUCTS);
+    }
+
     private void simulateNetworkDelay() {
         try {
             // 模拟网络延迟 0.5-2秒
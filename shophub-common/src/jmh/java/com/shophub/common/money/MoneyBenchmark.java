@@ -0,0 +1,84 @@
+package com.shophub.common.money;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 订单合计：Money 与 BigDecimal 对比
+ *
+ * 每次调用对 lines 行（单价 x 数量）求和，对应三种写法：
+ * BigDecimal（multiply/add，改用 Money 之前的写法）、Money 链式 times/plus（每步创建一个 Money）、
+ * 按最小单位 long 累加后只创建一个 Money（PricingService.priceOf 的写法，订单定价的热路径）。
+ * 配合 -prof gc 可以看到每种写法每次调用的分配量。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MoneyBenchmark {
+
+    private static final String CURRENCY = "USD";
+
+    @Param({"4", "64"})
+    private int lines;
+
+    private BigDecimal[] decimalPrices;
+    private Money[] moneyPrices;
+    private int[] quantities;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        decimalPrices = new BigDecimal[lines];
+        moneyPrices = new Money[lines];
+        quantities = new int[lines];
+        for (int i = 0; i < lines; i++) {
+            long cents = random.nextLong(99, 500_000);
+            decimalPrices[i] = BigDecimal.valueOf(cents, 2);
+            moneyPrices[i] = Money.ofMinor(cents, CURRENCY);
+            quantities[i] = random.nextInt(1, 10);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            total = total.add(decimalPrices[i].multiply(BigDecimal.valueOf(quantities[i])));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public Money moneyArithmetic() {
+        Money total = Money.zero(CURRENCY);
+        for (int i = 0; i < lines; i++) {
+            total = total.plus(moneyPrices[i].times(quantities[i]));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public Money minorUnitSum() {
+        long total = 0;
+        for (int i = 0; i < lines; i++) {
+            total = Math.addExact(total, Math.multiplyExact(moneyPrices[i].getMinorUnits(), quantities[i]));
+        }
+        return Money.ofMinor(total, CURRENCY);
+    }
+}
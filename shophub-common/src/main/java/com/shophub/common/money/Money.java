@@ -0,0 +1,186 @@
+package com.shophub.common.money;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 金额
+ *
+ * 以货币最小单位（如分）的 long 值加 ISO 4217 货币代码表示。加减乘都是 long 整数运算，
+ * 结果精确，不创建 BigDecimal 中间对象，溢出时抛出 ArithmeticException；
+ * Money 不可变，每次运算返回一个新的 Money，循环累加的热路径按 getMinorUnits() 做 long 运算、最后创建一个 Money。
+ * 只在与外部交互（JSON、数据库、支付网关）时与 BigDecimal 互相转换。
+ * 不同货币的金额不能直接运算或比较。
+ */
+public final class Money implements Comparable<Money>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final long[] POWERS_OF_TEN = {
+        1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L
+    };
+
+    /** 货币代码 -> 小数位数，避免每次查询 java.util.Currency */
+    private static final Map<String, Integer> FRACTION_DIGITS = new ConcurrentHashMap<>();
+
+    private final long minorUnits;
+    private final String currency;
+
+    private Money(long minorUnits, String currency) {
+        this.minorUnits = minorUnits;
+        this.currency = currency;
+    }
+
+    /**
+     * 按最小单位创建，如 ofMinor(1999, "USD") 表示 19.99 USD
+     */
+    public static Money ofMinor(long minorUnits, String currency) {
+        fractionDigits(currency);
+        return new Money(minorUnits, currency);
+    }
+
+    /**
+     * 按整数金额创建，如 ofMajor(20, "USD") 表示 20.00 USD
+     */
+    public static Money ofMajor(long majorUnits, String currency) {
+        return new Money(Math.multiplyExact(majorUnits, POWERS_OF_TEN[fractionDigits(currency)]), currency);
+    }
+
+    /**
+     * 从 BigDecimal 精确转换，小数位超过货币最小单位时抛出 ArithmeticException
+     */
+    public static Money of(BigDecimal amount, String currency) {
+        Objects.requireNonNull(amount, "amount");
+        BigDecimal scaled = amount.setScale(fractionDigits(currency), RoundingMode.UNNECESSARY);
+        return new Money(scaled.unscaledValue().longValueExact(), currency);
+    }
+
+    /**
+     * 从外部数值（JSON 数字等）转换：整数直接换算，浮点数按其最短十进制表示精确转换
+     */
+    public static Money of(Number amount, String currency) {
+        Objects.requireNonNull(amount, "amount");
+        if (amount instanceof Long || amount instanceof Integer || amount instanceof Short || amount instanceof Byte) {
+            return ofMajor(amount.longValue(), currency);
+        }
+        if (amount instanceof BigDecimal decimal) {
+            return of(decimal, currency);
+        }
+        if (amount instanceof BigInteger integer) {
+            return of(new BigDecimal(integer), currency);
+        }
+        double value = amount.doubleValue();
+        if (!Double.isFinite(value)) {
+            throw new ArithmeticException("Not a finite amount: " + amount);
+        }
+        return of(BigDecimal.valueOf(value), currency);
+    }
+
+    public static Money zero(String currency) {
+        return ofMinor(0L, currency);
+    }
+
+    /**
+     * 货币的小数位数（最小单位的位数），如 USD/CNY 为 2，JPY 为 0
+     */
+    public static int fractionDigits(String currency) {
+        Objects.requireNonNull(currency, "currency");
+        Integer digits = FRACTION_DIGITS.get(currency);
+        if (digits != null) {
+            return digits;
+        }
+        int resolved = Currency.getInstance(currency).getDefaultFractionDigits();
+        if (resolved < 0 || resolved >= POWERS_OF_TEN.length) {
+            throw new IllegalArgumentException("Unsupported currency: " + currency);
+        }
+        FRACTION_DIGITS.putIfAbsent(currency, resolved);
+        return resolved;
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public Money plus(Money other) {
+        checkSameCurrency(other);
+        return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        checkSameCurrency(other);
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money times(long quantity) {
+        return new Money(Math.multiplyExact(minorUnits, quantity), currency);
+    }
+
+    public Money negate() {
+        return new Money(Math.negateExact(minorUnits), currency);
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    /**
+     * 转换为 BigDecimal，小数位数等于货币的最小单位位数
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, fractionDigits(currency));
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        checkSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Money other)) {
+            return false;
+        }
+        return minorUnits == other.minorUnits && currency.equals(other.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(minorUnits) + currency.hashCode();
+    }
+
+    /**
+     * 如 "19.99 USD"
+     */
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString() + " " + currency;
+    }
+
+    private void checkSameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " vs " + other.currency);
+        }
+    }
+}
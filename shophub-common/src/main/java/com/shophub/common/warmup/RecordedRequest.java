@@ -0,0 +1,47 @@
+package com.shophub.common.warmup;
+
+import org.springframework.core.io.Resource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 录制的预热请求
+ *
+ * 录制文件每行一个请求：方法 路径 [JSON 请求体]，空行和 # 开头的行忽略，例如
+ * GET /api/products/1
+ * 预热请求会真实执行，录制的请求应当没有副作用（查询类接口）。
+ */
+public record RecordedRequest(String method, String path, String body) {
+
+    public static List<RecordedRequest> load(Resource recording) throws IOException {
+        List<RecordedRequest> requests = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(recording.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                requests.add(parse(line, lineNumber));
+            }
+        }
+        return requests;
+    }
+
+    private static RecordedRequest parse(String line, int lineNumber) {
+        String[] parts = line.split("\\s+", 3);
+        if (parts.length < 2 || !parts[1].startsWith("/")) {
+            throw new IllegalArgumentException("Invalid warm-up request at line " + lineNumber + ": " + line);
+        }
+        return new RecordedRequest(parts[0].toUpperCase(Locale.ROOT), parts[1], parts.length > 2 ? parts[2] : null);
+    }
+}
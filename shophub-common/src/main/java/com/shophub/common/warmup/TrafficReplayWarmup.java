@@ -0,0 +1,201 @@
+package com.shophub.common.warmup;
+
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.cloud.netflix.eureka.EurekaInstanceConfigBean;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 注册前预热
+ *
+ * 实例先以 STARTING 状态注册到 Eureka（客户端默认只使用 UP 实例，所以不会分到流量）。
+ * 应用启动完成后按轮回放录制的请求，请求发往本机端口，经过完整的 Tomcat / Spring MVC / Jackson 链路；
+ * 每轮统计 2xx 响应的 p99 延迟（非 2xx 响应只计数，不计入延迟样本，避免快速失败的请求拉低 p99），
+ * 至少 minRounds 轮且连续 stableRounds 轮与上一轮相差不超过 tolerance 时认为热点代码已完成编译，
+ * 写入 registered-at 元数据后把状态置为 UP。
+ * 超过 maxDuration 仍未稳定或预热出错时同样置为 UP，预热只推迟上线、不阻止上线。
+ * 回放的请求与真实请求没有区别、会真实执行，录制文件只应包含无副作用的请求。
+ */
+public class TrafficReplayWarmup {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrafficReplayWarmup.class);
+
+    /** 实例变为 UP 的时间（毫秒时间戳），调用方据此对新实例慢启动 */
+    public static final String REGISTERED_AT_METADATA_KEY = "registered-at";
+
+    private final EurekaInstanceConfigBean instanceConfig;
+    private final ApplicationInfoManager applicationInfoManager;
+    private final Resource recording;
+    private final int iterationsPerRound;
+    private final int concurrency;
+    private final int minRounds;
+    private final int stableRounds;
+    private final double tolerance;
+    private final Duration maxDuration;
+    private final Duration requestTimeout;
+
+    public TrafficReplayWarmup(EurekaInstanceConfigBean instanceConfig, ApplicationInfoManager applicationInfoManager,
+                               Resource recording, int iterationsPerRound, int concurrency, int minRounds,
+                               int stableRounds, double tolerance, Duration maxDuration, Duration requestTimeout) {
+        this.instanceConfig = instanceConfig;
+        this.applicationInfoManager = applicationInfoManager;
+        this.recording = recording;
+        this.iterationsPerRound = Math.max(1, iterationsPerRound);
+        this.concurrency = Math.max(1, concurrency);
+        this.minRounds = Math.max(2, minRounds);
+        this.stableRounds = Math.max(1, stableRounds);
+        this.tolerance = tolerance;
+        this.maxDuration = maxDuration;
+        this.requestTimeout = requestTimeout;
+        // 单例创建早于自动注册（SmartLifecycle 启动），此时修改初始状态即可让首次注册为 STARTING
+        instanceConfig.setInitialStatus(InstanceStatus.STARTING);
+    }
+
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        if (!(event.getApplicationContext() instanceof WebServerApplicationContext webContext)) {
+            return;
+        }
+        int port = webContext.getWebServer().getPort();
+        Thread thread = new Thread(() -> warmUpAndRegister(port), "traffic-replay-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void warmUpAndRegister(int port) {
+        long start = System.nanoTime();
+        try {
+            List<RecordedRequest> requests = RecordedRequest.load(recording);
+            if (requests.isEmpty()) {
+                logger.warn("No warm-up requests in {}, registering immediately", recording.getDescription());
+            } else {
+                replayUntilStable(requests, port, start);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Warm-up interrupted, registering immediately");
+        } catch (Exception e) {
+            logger.warn("Warm-up aborted, registering immediately: {}", e.getMessage());
+        } finally {
+            markUp(start);
+        }
+    }
+
+    private void replayUntilStable(List<RecordedRequest> requests, int port, long start)
+            throws InterruptedException, ExecutionException {
+        HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(requestTimeout)
+            .build();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "traffic-replay-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            long deadline = start + maxDuration.toNanos();
+            long previous = 0L;
+            int stable = 0;
+            int round = 0;
+            while (System.nanoTime() < deadline) {
+                round++;
+                AtomicInteger errors = new AtomicInteger();
+                long p99 = replayRound(requests, port, httpClient, executor, errors);
+                stable = previous > 0 && Math.abs(p99 - previous) <= previous * tolerance ? stable + 1 : 0;
+                previous = p99;
+                logger.debug("Warm-up round {}: p99={}us, non-2xx responses={}", round, p99 / 1000, errors.get());
+                if (round >= minRounds && stable >= stableRounds) {
+                    logger.info("Warm-up stabilized after {} rounds in {} ms, p99={}us",
+                        round, (System.nanoTime() - start) / 1_000_000, p99 / 1000);
+                    return;
+                }
+            }
+            logger.warn("Warm-up did not stabilize within {}, last p99={}us", maxDuration, previous / 1000);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 回放一轮：录制的请求各执行 iterationsPerRound 次，返回本轮 2xx 响应的 p99 延迟（纳秒）
+     */
+    private long replayRound(List<RecordedRequest> requests, int port, HttpClient httpClient,
+                             ExecutorService executor, AtomicInteger errors)
+            throws InterruptedException, ExecutionException {
+        int total = requests.size() * iterationsPerRound;
+        long[] latencies = new long[total];
+        AtomicInteger next = new AtomicInteger();
+        List<Callable<Void>> workers = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            workers.add(() -> {
+                int n;
+                while ((n = next.getAndIncrement()) < total) {
+                    latencies[n] = send(requests.get(n % requests.size()), port, httpClient, errors);
+                }
+                return null;
+            });
+        }
+        for (Future<Void> worker : executor.invokeAll(workers)) {
+            worker.get();
+        }
+        long[] samples = Arrays.stream(latencies).filter(latency -> latency >= 0).sorted().toArray();
+        if (samples.length == 0) {
+            throw new IllegalStateException("No warm-up request returned 2xx");
+        }
+        return samples[Math.max(0, (int) Math.ceil(samples.length * 0.99) - 1)];
+    }
+
+    /**
+     * 发送一个请求，返回延迟（纳秒）；非 2xx 响应计入 errors 并返回 -1
+     */
+    private long send(RecordedRequest recorded, int port, HttpClient httpClient, AtomicInteger errors)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + recorded.path()))
+            .timeout(requestTimeout);
+        if (recorded.body() != null) {
+            builder.header("Content-Type", "application/json")
+                .method(recorded.method(), HttpRequest.BodyPublishers.ofString(recorded.body()));
+        } else {
+            builder.method(recorded.method(), HttpRequest.BodyPublishers.noBody());
+        }
+        long begin = System.nanoTime();
+        HttpResponse<Void> response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.discarding());
+        long latency = System.nanoTime() - begin;
+        if (response.statusCode() < 200 || response.statusCode() >= 300) {
+            errors.incrementAndGet();
+            return -1L;
+        }
+        return latency;
+    }
+
+    private void markUp(long start) {
+        // 之后配置刷新触发重新注册时直接以 UP 注册
+        instanceConfig.setInitialStatus(InstanceStatus.UP);
+        applicationInfoManager.registerAppMetadata(
+            Map.of(REGISTERED_AT_METADATA_KEY, String.valueOf(System.currentTimeMillis())));
+        applicationInfoManager.setInstanceStatus(InstanceStatus.UP);
+        logger.info("Instance marked UP in Eureka after {} ms of warm-up", (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,36 @@
+package com.shophub.common.warmup;
+
+import com.netflix.appinfo.ApplicationInfoManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.netflix.eureka.EurekaInstanceConfigBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
+
+import java.time.Duration;
+
+/**
+ * 注册前预热配置，warmup.enabled=true 时生效；服务通过 @Import 引入
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "warmup", name = "enabled", havingValue = "true")
+public class WarmupConfiguration {
+
+    @Bean
+    public TrafficReplayWarmup trafficReplayWarmup(
+            EurekaInstanceConfigBean instanceConfig,
+            ApplicationInfoManager applicationInfoManager,
+            ResourceLoader resourceLoader,
+            @Value("${warmup.recording:classpath:warmup/requests.txt}") String recording,
+            @Value("${warmup.iterations-per-round:200}") int iterationsPerRound,
+            @Value("${warmup.concurrency:4}") int concurrency,
+            @Value("${warmup.min-rounds:5}") int minRounds,
+            @Value("${warmup.stable-rounds:3}") int stableRounds,
+            @Value("${warmup.tolerance:0.1}") double tolerance,
+            @Value("${warmup.max-duration:120s}") Duration maxDuration,
+            @Value("${warmup.request-timeout:5s}") Duration requestTimeout) {
+        return new TrafficReplayWarmup(instanceConfig, applicationInfoManager, resourceLoader.getResource(recording),
+            iterationsPerRound, concurrency, minRounds, stableRounds, tolerance, maxDuration, requestTimeout);
+    }
+}
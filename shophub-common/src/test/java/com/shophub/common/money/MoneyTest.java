@@ -0,0 +1,67 @@
+package com.shophub.common.money;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MoneyTest {
+
+    @Test
+    void convertsToAndFromMinorUnitsByCurrencyFractionDigits() {
+        assertEquals(1999L, Money.of(new BigDecimal("19.99"), "USD").getMinorUnits());
+        assertEquals(2000L, Money.ofMajor(20, "USD").getMinorUnits());
+        assertEquals(500L, Money.ofMajor(500, "JPY").getMinorUnits());
+        assertEquals(new BigDecimal("19.99"), Money.ofMinor(1999, "USD").toBigDecimal());
+        assertEquals(new BigDecimal("1999"), Money.ofMinor(1999, "JPY").toBigDecimal());
+        assertEquals("19.90 USD", Money.ofMinor(1990, "USD").toString());
+    }
+
+    @Test
+    void externalNumbersConvertExactly() {
+        // double 按最短十进制表示转换：0.30 就是 30 分，而不是其二进制近似值 0.2999999999999999888...
+        assertEquals(Money.ofMinor(30, "USD"), Money.of(0.30, "USD"));
+        assertEquals(Money.ofMinor(899900, "CNY"), Money.of(8999.00, "CNY"));
+        assertEquals(Money.ofMinor(1500, "USD"), Money.of(15, "USD"));
+        assertEquals(Money.ofMinor(1500, "USD"), Money.of(BigInteger.valueOf(15), "USD"));
+        assertEquals(Money.ofMinor(1234, "USD"), Money.of((Number) new BigDecimal("12.34"), "USD"));
+    }
+
+    @Test
+    void rejectsAmountsThatCannotBeRepresentedExactly() {
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("19.999"), "USD"));
+        assertThrows(ArithmeticException.class, () -> Money.of(0.5, "JPY"));
+        assertThrows(ArithmeticException.class, () -> Money.of(Double.NaN, "USD"));
+        assertThrows(IllegalArgumentException.class, () -> Money.ofMinor(1, "XYZ"));
+    }
+
+    @Test
+    void arithmeticIsExactAndDetectsOverflow() {
+        Money price = Money.ofMinor(1999, "USD");
+        assertEquals(Money.ofMinor(5997, "USD"), price.times(3));
+        assertEquals(Money.ofMinor(2009, "USD"), price.plus(Money.ofMinor(10, "USD")));
+        assertEquals(Money.ofMinor(-1, "USD"), price.minus(Money.ofMajor(20, "USD")));
+        assertTrue(price.minus(price).isZero());
+        assertTrue(price.negate().isNegative());
+
+        Money max = Money.ofMinor(Long.MAX_VALUE, "USD");
+        assertThrows(ArithmeticException.class, () -> max.plus(Money.ofMinor(1, "USD")));
+        assertThrows(ArithmeticException.class, () -> max.times(2));
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MIN_VALUE, "USD").negate());
+    }
+
+    @Test
+    void differentCurrenciesCannotBeMixed() {
+        Money usd = Money.ofMinor(100, "USD");
+        Money cny = Money.ofMinor(100, "CNY");
+        assertNotEquals(usd, cny);
+        assertThrows(IllegalArgumentException.class, () -> usd.plus(cny));
+        assertThrows(IllegalArgumentException.class, () -> usd.compareTo(cny));
+        assertTrue(usd.compareTo(Money.ofMinor(101, "USD")) < 0);
+    }
+}
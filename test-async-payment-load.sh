@@ -0,0 +1,78 @@
+#!/bin/bash
+
+# 异步订单支付负载测试
+# 并发发起大量订单支付请求，同时测量订单服务其他接口的响应时间和 Tomcat 忙碌线程数。
+# 支付接口异步化后，等待支付服务期间不占用请求线程，健康检查等接口不会被支付请求拖慢。
+
+ORDER_SERVICE=${ORDER_SERVICE:-"http://localhost:8083"}
+CONCURRENCY=${CONCURRENCY:-400}
+ORDER_IDS=(1 2 3 4)
+
+echo "========================================="
+echo "Async Order Payment Load Test"
+echo "========================================="
+echo "Order Service: $ORDER_SERVICE"
+echo "Concurrent payment requests: $CONCURRENCY"
+
+# 检查订单服务状态
+response=$(curl -s -w "%{http_code}" "$ORDER_SERVICE/api/orders/health" -o /dev/null)
+if [ "$response" != "200" ]; then
+    echo "  ❌ Order Service is DOWN - HTTP: $response"
+    exit 1
+fi
+echo "  ✅ Order Service is UP"
+
+# 读取 Tomcat 线程指标
+tomcat_metric() {
+    curl -s "$ORDER_SERVICE/actuator/metrics/$1" | grep -o '"value":[0-9.]*' | head -1 | cut -d: -f2
+}
+
+# 测量健康检查接口响应时间（秒）
+probe_latency() {
+    curl -s -o /dev/null -w "%{time_total}" "$ORDER_SERVICE/api/orders/health"
+}
+
+echo ""
+echo "📊 Baseline"
+echo "  tomcat.threads.config.max: $(tomcat_metric tomcat.threads.config.max)"
+echo "  tomcat.threads.busy:       $(tomcat_metric tomcat.threads.busy)"
+echo "  health latency:            $(probe_latency)s"
+
+echo ""
+echo "🚀 Firing $CONCURRENCY concurrent payment requests..."
+result_file=$(mktemp)
+start=$(date +%s.%N)
+for i in $(seq 1 "$CONCURRENCY"); do
+    order_id=${ORDER_IDS[$((i % ${#ORDER_IDS[@]}))]}
+    curl -s -o /dev/null -w "%{http_code} %{time_total}\n" \
+        -X POST "$ORDER_SERVICE/api/orders/$order_id/payment" \
+        -H "Content-Type: application/json" \
+        -d '{"gateway": "stripe"}' >> "$result_file" &
+done
+
+# 支付请求进行中时采样
+sleep 1
+echo ""
+echo "📊 While payments are in flight"
+for sample in 1 2 3; do
+    echo "  sample $sample: tomcat.threads.busy=$(tomcat_metric tomcat.threads.busy), health latency=$(probe_latency)s"
+    sleep 1
+done
+
+wait
+end=$(date +%s.%N)
+
+echo ""
+echo "📊 Results"
+total=$(wc -l < "$result_file")
+ok=$(grep -c "^200 " "$result_file")
+echo "  requests:        $total"
+echo "  HTTP 200:        $ok"
+echo "  elapsed:         $(echo "$end - $start" | bc)s"
+echo "  avg latency:     $(awk '{ sum += $2 } END { if (NR > 0) printf "%.3f", sum / NR }' "$result_file")s"
+echo "  max latency:     $(sort -k2 -n "$result_file" | tail -1 | cut -d' ' -f2)s"
+rm -f "$result_file"
+
+echo ""
+echo "说明：同步实现下每个支付请求占用一个 Tomcat 线程直到支付服务返回，并发超过"
+echo "tomcat.threads.config.max 后健康检查会排队；异步实现下忙碌线程数应保持在很低的水平。"